@@ -0,0 +1,123 @@
+package com.litsynp.batch.jmh;
+
+import com.litsynp.batch.BatchApplication;
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.support.MemberDataGenerator;
+import com.litsynp.batch.support.MemberDataSpec;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 벤치마크에서 사용하는 Spring 컨텍스트와 H2 인메모리 데이터를 준비한다.
+ */
+final class BenchmarkContexts {
+
+    // import.sql이 1001 ~ 1011번 회원을 넣으므로 그 뒤부터 채운다
+    static final long FIRST_IDX = 1_000_001L;
+
+    private BenchmarkContexts() {
+    }
+
+    /**
+     * 매번 새 인메모리 DB로 컨텍스트를 띄운다. Job은 자동으로 실행하지 않는다.
+     */
+    static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url",
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("spring.batch.jdbc.initialize-schema", "always");
+        defaults.put("spring.batch.job.enabled", "false");
+        defaults.put("logging.level.root", "WARN");
+        defaults.putAll(properties);
+
+        return new SpringApplicationBuilder(BatchApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(defaults)
+                .run();
+    }
+
+    /**
+     * 활성 회원을 rows 명 넣는다. 네 명 중 세 명은 1년 넘게 수정되지 않은 휴면 전환 대상이다.
+     */
+    static void seed(ConfigurableApplicationContext context, int rows) {
+        MemberDataSpec spec = MemberDataSpec.builder()
+                .grades(Map.of(Grade.VIP, 1.0, Grade.GOLD, 1.0, Grade.FAMILY, 1.0))
+                .statuses(Map.of(UserStatus.ACTIVE, 1.0))
+                .dormantRatio(0.75)
+                .build();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        new MemberDataGenerator(jdbcTemplate).generate(spec, FIRST_IDX, rows);
+        // Writer가 updated_date도 바꾸므로 되돌릴 수 있도록 처음 값을 남겨 둔다
+        jdbcTemplate.execute("create table member_seed as select idx, updated_date from member");
+        jdbcTemplate.execute("alter table member_seed add primary key (idx)");
+    }
+
+    /**
+     * 휴면으로 바뀐 회원을 seed()가 넣은 상태(활성, 처음 updated_date)로 되돌린다.
+     */
+    static void resetMembers(ConfigurableApplicationContext context) {
+        context.getBean(JdbcTemplate.class).update("update member m set status = 'ACTIVE'," +
+                " updated_date = (select s.updated_date from member_seed s where s.idx = m.idx)" +
+                " where status = 'INACTIVE'");
+    }
+
+    /**
+     * 기본 휴면 기준(1년)이 지난 활성 회원 수. 되돌린 뒤 Step 한 번이 쓰는 회원 수와 같아야 한다.
+     */
+    static int countCandidates(ConfigurableApplicationContext context) {
+        Integer count = context.getBean(JdbcTemplate.class).queryForObject(
+                "select count(*) from member where status = 'ACTIVE' and updated_date < ?",
+                Integer.class, LocalDateTime.now().minusYears(1));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Step 스코프 Reader 빈을 임시 StepExecution 안에서 열고, 최대 limit 개까지 읽는다.
+     */
+    static int readInStepScope(ConfigurableApplicationContext context, String beanName,
+            ExecutionContext executionContext, int limit) throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(
+                executionContext);
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            ItemReader<?> reader = context.getBean(beanName, ItemReader.class);
+            return drain(reader, executionContext, limit);
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+
+    static int drain(ItemReader<?> reader, ExecutionContext executionContext, int limit)
+            throws Exception {
+        if (reader instanceof ItemStream stream) {
+            stream.open(executionContext);
+        }
+        try {
+            int count = 0;
+            while (count < limit && reader.read() != null) {
+                count++;
+            }
+            return count;
+        } finally {
+            if (reader instanceof ItemStream stream) {
+                stream.close();
+            }
+        }
+    }
+}
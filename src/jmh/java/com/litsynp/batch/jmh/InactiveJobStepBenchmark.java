@@ -0,0 +1,93 @@
+package com.litsynp.batch.jmh;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.StepRunner;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * inactiveJobStep 전체(읽기, 처리, 쓰기)를 청크 크기별로 한 번 실행하는 시간을 잰다.
+ * <p>
+ * 휴면 전환 대상은 rows의 3/4이다. 처리량(rows/sec)은 대상 회원 수를 결과 시간으로 나누어 계산한다. 매 호출 전에 회원의 status와 updated_date를
+ * 처음 상태로 되돌리고, 호출마다 모든 대상을 썼는지 확인한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class InactiveJobStepBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"15", "100", "1000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private StepRunner stepRunner;
+    private Step inactiveJobStep;
+    private int candidates;
+
+    @Setup
+    public void setUp() {
+        // 청크 크기별로 비교하기 위해 청크 크기 자동 조절은 끈다
+        context = BenchmarkContexts.start(Map.of(
+                "batch.inactive.chunk-size", chunkSize,
+                "batch.inactive.adaptive-chunk.enabled", false));
+        BenchmarkContexts.seed(context, rows);
+        stepRunner = new StepRunner(context.getBean(JobLauncher.class),
+                context.getBean(JobRepository.class));
+        inactiveJobStep = context.getBean("inactiveJobStep", Step.class);
+        candidates = BenchmarkContexts.countCandidates(context);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetMembers() {
+        BenchmarkContexts.resetMembers(context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int inactiveJobStep() {
+        StepExecution stepExecution = stepRunner.launchStep(inactiveJobStep,
+                new JobParametersBuilder()
+                        .addDate("nowDate", new Date())
+                        .addLong("run.id", System.nanoTime())
+                        .toJobParameters());
+        if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
+            throw new IllegalStateException("inactiveJobStep failed: " + stepExecution);
+        }
+        // 되돌리지 못해 빈 Step을 재지 않도록 매번 모든 대상을 썼는지 확인한다
+        if (stepExecution.getWriteCount() != candidates) {
+            throw new IllegalStateException("inactiveJobStep wrote "
+                    + stepExecution.getWriteCount() + " members, expected " + candidates);
+        }
+        return stepExecution.getWriteCount();
+    }
+}
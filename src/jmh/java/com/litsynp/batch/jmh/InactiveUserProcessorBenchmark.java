@@ -0,0 +1,77 @@
+package com.litsynp.batch.jmh;
+
+import com.litsynp.batch.domain.User;
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.InactiveUserJobConfig;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * inactiveUserProcessor()가 청크 하나를 변환하는 시간을 잰다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class InactiveUserProcessorBenchmark {
+
+    @Param({"15", "1000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemProcessor<User, User> processor;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start(Map.of());
+        processor = context.getBean(InactiveUserJobConfig.class).inactiveUserProcessor();
+
+        LocalDateTime updatedDate = LocalDateTime.now().minusYears(2);
+        users = IntStream.range(0, chunkSize)
+                .mapToObj(i -> User.builder()
+                        .name("user" + i)
+                        .email("user" + i + "@test.com")
+                        .socialType(SocialType.FACEBOOK)
+                        .status(UserStatus.ACTIVE)
+                        .grade(Grade.FAMILY)
+                        .createdDate(updatedDate)
+                        .updatedDate(updatedDate)
+                        .build())
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void inactiveUserProcessor(Blackhole blackhole) throws Exception {
+        for (User user : users) {
+            blackhole.consume(processor.process(user));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.litsynp.batch.jmh;
+
+import com.litsynp.batch.domain.User;
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.readers.QueueItemReader;
+import com.litsynp.batch.repository.UserRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 휴면회원 Reader들이 readCount 개의 회원을 읽는 데 걸리는 시간을 잰다.
+ * <p>
+ * 쓰기를 하지 않으므로 getPage()를 0으로 고정한 JpaPagingItemReader는 매 페이지 같은 행을 다시 읽는다. 즉 offset 0 쿼리 한 번의 비용을
+ * readCount / pageSize 번 잰다. ListItemReader와 QueueItemReader는 등급 전체를 메모리에 올리는 비용을, IdBufferItemReader
+ * (inactiveUserIdBufferReader)는 대상 전체의 idx를 읽는 비용을 포함한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class InactiveUserReaderBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"1500"})
+    public int readCount;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start(Map.of());
+        BenchmarkContexts.seed(context, rows);
+        userRepository = context.getBean(UserRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int jpaPagingReaderWithPageZero() throws Exception {
+        return BenchmarkContexts.readInStepScope(context, "inactiveUserJpaReader",
+                new ExecutionContext(), readCount);
+    }
+
+    @Benchmark
+    public int keysetReader() throws Exception {
+        return BenchmarkContexts.readInStepScope(context, "inactiveUserKeysetReader",
+                new ExecutionContext(), readCount);
+    }
+
+    @Benchmark
+    public int projectionKeysetReader() throws Exception {
+        return BenchmarkContexts.readInStepScope(context, "inactiveUserRowReader",
+                new ExecutionContext(), readCount);
+    }
+
+    @Benchmark
+    public int idBufferReader() throws Exception {
+        return BenchmarkContexts.readInStepScope(context, "inactiveUserIdBufferReader",
+                new ExecutionContext(), readCount);
+    }
+
+    @Benchmark
+    public int listItemReader() throws Exception {
+        return BenchmarkContexts.drain(new ListItemReader<>(findFamilyCandidates()),
+                new ExecutionContext(), readCount);
+    }
+
+    @Benchmark
+    public int queueItemReader() throws Exception {
+        return BenchmarkContexts.drain(new QueueItemReader<>(findFamilyCandidates()),
+                new ExecutionContext(), readCount);
+    }
+
+    private List<User> findFamilyCandidates() {
+        return userRepository.findByUpdatedDateBeforeAndStatusEqualsAndGradeEquals(
+                LocalDateTime.now().minusYears(1), UserStatus.ACTIVE, Grade.FAMILY);
+    }
+}
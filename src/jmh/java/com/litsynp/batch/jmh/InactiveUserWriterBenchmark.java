@@ -0,0 +1,109 @@
+package com.litsynp.batch.jmh;
+
+import com.litsynp.batch.domain.User;
+import com.litsynp.batch.domain.jobs.inactive.writers.InactiveUserJdbcItemWriter;
+import com.litsynp.batch.repository.UserRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 청크 하나(chunkSize 명)를 휴면으로 쓰는 데 걸리는 시간을 Writer별로 잰다.
+ * <p>
+ * 매 호출 전에 해당 회원을 활성 상태로 되돌리고 준영속 엔티티로 다시 읽어 오므로, 항상 실제 update가 일어난다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class InactiveUserWriterBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"15", "100", "1000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private TransactionTemplate transactionTemplate;
+    private JpaItemWriter<User> jpaItemWriter;
+    private InactiveUserJdbcItemWriter<User> jdbcItemWriter;
+    private List<Long> idxs;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start(Map.of());
+        BenchmarkContexts.seed(context, rows);
+        userRepository = context.getBean(UserRepository.class);
+        transactionTemplate = new TransactionTemplate(
+                context.getBean(PlatformTransactionManager.class));
+
+        jpaItemWriter = new JpaItemWriter<>();
+        jpaItemWriter.setEntityManagerFactory(context.getBean(EntityManagerFactory.class));
+        jdbcItemWriter = new InactiveUserJdbcItemWriter<>(
+                context.getBean(NamedParameterJdbcTemplate.class), User::getIdx);
+
+        long firstIdx = BenchmarkContexts.FIRST_IDX;
+        idxs = LongStream.range(firstIdx, firstIdx + chunkSize)
+                .boxed()
+                .toList();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareChunk() {
+        BenchmarkContexts.resetMembers(context);
+        users = userRepository.findAllById(idxs).stream()
+                .map(User::setInactive)
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void jpaItemWriter() {
+        writeInTransaction(jpaItemWriter);
+    }
+
+    @Benchmark
+    public void jdbcItemWriter() {
+        writeInTransaction(jdbcItemWriter);
+    }
+
+    private void writeInTransaction(ItemWriter<User> writer) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writer.write(users);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
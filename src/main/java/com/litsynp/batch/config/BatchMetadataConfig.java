@@ -0,0 +1,56 @@
+package com.litsynp.batch.config;
+
+import com.litsynp.batch.config.BatchMetadataProperties.Mode;
+import com.litsynp.batch.support.ThrottlingJobRepository;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.configuration.annotation.BatchConfigurer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.batch.JpaBatchConfigurer;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 배치 메타데이터(BATCH_*)를 저장하는 JobRepository를 설정한다.
+ * <p>
+ * 스프링 부트가 등록하는 JpaBatchConfigurer와 같은 JobRepository, 트랜잭션 매니저를 만들고, batch.metadata.mode가 throttled면
+ * JobRepository를 ThrottlingJobRepository로 감싸 청크마다 하던 Step 진행 상황 저장을 몇 청크에 한 번으로 줄인다.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(BatchMetadataProperties.class)
+public class BatchMetadataConfig {
+
+    @Bean
+    public BatchConfigurer batchConfigurer(BatchProperties batchProperties, DataSource dataSource,
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers,
+            EntityManagerFactory entityManagerFactory,
+            BatchMetadataProperties batchMetadataProperties) {
+        return new JpaBatchConfigurer(batchProperties, dataSource,
+                transactionManagerCustomizers.getIfAvailable(), entityManagerFactory) {
+            @Override
+            protected JobRepository createJobRepository() throws Exception {
+                JobRepository jobRepository = super.createJobRepository();
+                if (batchMetadataProperties.getMode() != Mode.THROTTLED) {
+                    return jobRepository;
+                }
+                log.info("Saving step progress every {} chunks or {}",
+                        batchMetadataProperties.getFlushEveryChunks(),
+                        batchMetadataProperties.getFlushInterval());
+                String tablePrefix = batchProperties.getJdbc().getTablePrefix();
+                return new ThrottlingJobRepository(jobRepository, new JdbcTemplate(dataSource),
+                        tablePrefix != null ? tablePrefix
+                                : AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX,
+                        batchMetadataProperties.getFlushEveryChunks(),
+                        batchMetadataProperties.getFlushInterval());
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.litsynp.batch.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "batch.metadata")
+public class BatchMetadataProperties {
+
+    /**
+     * 실행 중인 Step의 진행 상황을 저장하는 방식
+     */
+    private Mode mode = Mode.FULL;
+
+    /**
+     * throttled 모드에서 이 청크 수마다 한 번 저장한다
+     */
+    private int flushEveryChunks = 20;
+
+    /**
+     * throttled 모드에서 청크 수와 상관없이 이 시간이 지나면 저장한다
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    public enum Mode {
+        /**
+         * 청크를 커밋할 때마다 저장한다 (스프링 배치 기본 동작)
+         */
+        FULL,
+        /**
+         * flush-every-chunks 청크 또는 flush-interval마다, 그리고 Step이 끝날 때 저장한다
+         */
+        THROTTLED
+    }
+}
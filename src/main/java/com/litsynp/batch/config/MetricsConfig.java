@@ -0,0 +1,44 @@
+package com.litsynp.batch.config;
+
+import com.litsynp.batch.support.JdbcTimingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 배치 메트릭을 모으는 MeterRegistry를 등록한다.
+ * <p>
+ * 배치 메트릭은 모두 이 MeterRegistry 빈을 주입받아 기록한다. 스프링 배치가 Metrics.globalRegistry에 기록하는 기본 메트릭(spring.batch.*)을
+ * 모으려고 이 레지스트리를 globalRegistry에 추가하면, 컨텍스트를 닫아도 레지스트리가 static 컴포지트에 남아 같은 JVM에서 띄운 다른 컨텍스트(테스트,
+ * 벤치마크)의 메트릭까지 섞인다. 청크 단계별 시간은 InactiveStepListener가 따로 재므로 기본 메트릭은 내보내지 않는다. DataSource는
+ * JdbcTimingDataSource로 감싸 JDBC 실행 시간을 따로 잰다.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public PrometheusMeterRegistry prometheusMeterRegistry() {
+        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    }
+
+    // BeanPostProcessor는 다른 빈보다 먼저 생성되므로 static으로 선언하고, MeterRegistry는 처음 사용할 때 가져온다
+    @Bean
+    public static BeanPostProcessor jdbcTimingDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource
+                        && !(bean instanceof JdbcTimingDataSource)) {
+                    return new JdbcTimingDataSource(dataSource, meterRegistry::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+}
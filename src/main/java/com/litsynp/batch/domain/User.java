@@ -12,6 +12,7 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -22,7 +23,11 @@ import lombok.NoArgsConstructor;
 @EqualsAndHashCode(of = {"idx", "email"})
 @NoArgsConstructor
 @Entity
-@Table(name = "member")
+// 휴면 전환 대상 조회는 모두 status와 updated_date로 거르므로 두 컬럼으로 시작하는 인덱스를 둔다 (db/migration/V2와 같아야 한다)
+@Table(name = "member", indexes = {
+        @Index(name = "idx_member_status_updated_date", columnList = "status, updated_date, idx"),
+        @Index(name = "idx_member_status_grade_updated_date",
+                columnList = "status, grade, updated_date, idx")})
 public class User implements Serializable {
 
     @Id
@@ -0,0 +1,131 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * 청크 트랜잭션에 걸린 시간을 보고 청크 크기를 조절하는 CompletionPolicy.
+ * <p>
+ * 청크가 목표 시간(targetLatency)의 절반보다 빨리 끝나면 청크 크기를 1.5배로 늘리고, 목표 시간보다 오래 걸리면 걸린 시간에 반비례해 줄인다. 청크가
+ * 실패하거나(락 대기 시간 초과, 데드락 등) 복제 지연이 maxLag를 넘으면 절반으로 줄인다. 크기는 항상 [minSize, maxSize] 안에서 움직인다.
+ * <p>
+ * 조용한 DB에서는 큰 청크로 커밋 횟수를 줄이고, 바쁜 DB에서는 작은 청크로 트랜잭션을 짧게 유지하기 위함이다. 청크 크기는 청크가 시작될 때 정해지므로 한
+ * 청크 안에서는 바뀌지 않는다. Reader의 페이지 크기도 getChunkSize()를 따라가도록 설정한다.
+ */
+@Slf4j
+public class AdaptiveChunkSizePolicy extends CompletionPolicySupport implements ChunkListener {
+
+    private static final double GROW_FACTOR = 1.5;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetLatencyNanos;
+    private final AtomicInteger chunkSize;
+    private final ThreadLocal<Long> chunkStartedAt = new ThreadLocal<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final int lagCheckInterval;
+    private final AtomicInteger completedChunks = new AtomicInteger();
+
+    public AdaptiveChunkSizePolicy(int initialSize, int minSize, int maxSize,
+            Duration targetLatency) {
+        this(initialSize, minSize, maxSize, targetLatency, null, null, null, 0);
+    }
+
+    /**
+     * lagQuery는 복제 지연을 초 단위 숫자 하나로 반환하는 쿼리이다. lagCheckInterval 청크마다 실행한다.
+     */
+    public AdaptiveChunkSizePolicy(int initialSize, int minSize, int maxSize,
+            Duration targetLatency, JdbcTemplate jdbcTemplate, String lagQuery, Duration maxLag,
+            int lagCheckInterval) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.chunkSize = new AtomicInteger(clamp(initialSize));
+        this.jdbcTemplate = jdbcTemplate;
+        this.lagQuery = StringUtils.hasText(lagQuery) ? lagQuery : null;
+        this.maxLag = maxLag;
+        this.lagCheckInterval = lagCheckInterval;
+    }
+
+    public int getChunkSize() {
+        return chunkSize.get();
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        return new SizedRepeatContext(parent, chunkSize.get());
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((SizedRepeatContext) context).size;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStartedAt.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        Long startedAt = chunkStartedAt.get();
+        if (startedAt == null) {
+            return;
+        }
+        long latencyNanos = System.nanoTime() - startedAt;
+        chunkSize.updateAndGet(size -> {
+            if (latencyNanos > targetLatencyNanos) {
+                return clamp((int) (size * ((double) targetLatencyNanos / latencyNanos)));
+            }
+            if (latencyNanos < targetLatencyNanos / 2) {
+                return clamp((int) Math.ceil(size * GROW_FACTOR));
+            }
+            return size;
+        });
+
+        if (lagQuery != null && lagCheckInterval > 0
+                && completedChunks.incrementAndGet() % lagCheckInterval == 0) {
+            checkReplicationLag();
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        int size = chunkSize.updateAndGet(current -> clamp(current / 2));
+        log.info("Chunk failed, reducing chunk size to {}", size);
+    }
+
+    private void checkReplicationLag() {
+        Double lagSeconds = jdbcTemplate.queryForObject(lagQuery, Double.class);
+        if (lagSeconds != null && lagSeconds * 1000 > maxLag.toMillis()) {
+            int size = chunkSize.updateAndGet(current -> clamp(current / 2));
+            log.info("Replication lag {}s exceeds {}, reducing chunk size to {}", lagSeconds,
+                    maxLag, size);
+        }
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    private static class SizedRepeatContext extends RepeatContextSupport {
+
+        private final int size;
+
+        SizedRepeatContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import java.time.LocalDate;
+
+/**
+ * 휴면 전환 예정 안내 한 건.
+ *
+ * @param idx           회원 idx
+ * @param email         안내를 받을 이메일
+ * @param socialType    가입한 소셜 서비스 (SocialType.getValue()). 없으면 null
+ * @param scheduledDate 휴면으로 전환될 날짜 (updated_date + 회원에게 맞는 규칙의 기준)
+ */
+public record DormancyNotice(long idx, String email, String socialType, LocalDate scheduledDate) {
+
+    /**
+     * NDJSON 한 줄 (줄바꿈 제외)
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"idx\":").append(idx);
+        json.append(",\"email\":");
+        appendString(json, email);
+        json.append(",\"socialType\":");
+        appendString(json, socialType);
+        json.append(",\"scheduledDate\":\"").append(scheduledDate).append("\"}");
+        return json.toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
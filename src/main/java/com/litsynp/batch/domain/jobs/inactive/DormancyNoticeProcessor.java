@@ -0,0 +1,69 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import java.time.LocalDateTime;
+import java.time.Period;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * 안내 구간에서 읽은 회원을 자신에게 맞는 규칙(DormancyPolicy)으로 다시 판단해 휴면 전환 예정 안내를 만든다.
+ * <p>
+ * 회원은 규칙의 기준(threshold)보다 noticeLead만큼 먼저 안내한다. 즉 updated_date + threshold - noticeLead가 [since, now) 안에 들면 이번
+ * 실행에서 안내하고, 휴면 전환 예정일은 updated_date + threshold다. Reader는 모든 규칙의 구간을 포함하도록 [since - 가장 긴 기준 + noticeLead,
+ * now - 가장 짧은 기준 + noticeLead)를 읽으므로, 자신의 규칙 구간 밖의 회원은 null을 반환해 건너뛴다(filterCount).
+ */
+public class DormancyNoticeProcessor implements
+        ItemProcessor<DormancyNoticeProcessor.Candidate, DormancyNotice> {
+
+    private final DormancyPolicy dormancyPolicy;
+    // 규칙 번호별 안내 구간 [noticeAfter, noticeBefore)의 updated_date
+    private final LocalDateTime[] noticeAfter;
+    private final LocalDateTime[] noticeBefore;
+
+    public DormancyNoticeProcessor(DormancyPolicy dormancyPolicy, LocalDateTime since,
+            LocalDateTime now, Period noticeLead) {
+        this.dormancyPolicy = dormancyPolicy;
+        this.noticeAfter = dormancyPolicy.cutoffs(since);
+        this.noticeBefore = dormancyPolicy.cutoffs(now);
+        for (int rule = 0; rule < noticeAfter.length; rule++) {
+            noticeAfter[rule] = noticeAfter[rule].plus(noticeLead);
+            noticeBefore[rule] = noticeBefore[rule].plus(noticeLead);
+        }
+    }
+
+    /**
+     * 모든 규칙의 안내 구간을 포함하는 updated_date 구간. Reader는 이 구간을 읽는다.
+     */
+    public static InactiveScanWindow readWindow(DormancyPolicy dormancyPolicy,
+            LocalDateTime since, LocalDateTime now, Period noticeLead) {
+        return new InactiveScanWindow(dormancyPolicy.earliestCutoff(since).plus(noticeLead),
+                dormancyPolicy.scanCutoff(now).plus(noticeLead));
+    }
+
+    @Override
+    public DormancyNotice process(Candidate candidate) {
+        int rule = dormancyPolicy.ruleOf(candidate.grade(), candidate.socialType());
+        LocalDateTime updatedDate = candidate.updatedDate();
+        if (updatedDate.isBefore(noticeAfter[rule]) || !updatedDate.isBefore(noticeBefore[rule])) {
+            return null;
+        }
+        SocialType socialType = candidate.socialType();
+        return new DormancyNotice(candidate.idx(), candidate.email(),
+                socialType == null ? null : socialType.getValue(),
+                updatedDate.plus(dormancyPolicy.threshold(rule)).toLocalDate());
+    }
+
+    /**
+     * 안내 구간에서 읽은 회원.
+     *
+     * @param idx         회원 idx
+     * @param email       안내를 받을 이메일
+     * @param grade       회원 등급
+     * @param socialType  소셜 타입
+     * @param updatedDate 마지막으로 수정한 시각
+     */
+    public record Candidate(long idx, String email, Grade grade, SocialType socialType,
+                            LocalDateTime updatedDate) {
+    }
+}
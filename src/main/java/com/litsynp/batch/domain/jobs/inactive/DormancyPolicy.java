@@ -0,0 +1,146 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Policy;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Rule;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import org.springframework.util.Assert;
+
+/**
+ * 등급(Grade)과 소셜 타입(SocialType)별 휴면 기준(batch.inactive.policy)을 미리 계산해 둔 정책.
+ * <p>
+ * 규칙마다 Job을 따로 실행하거나 파티션을 나누지 않고, 가장 짧은 기준으로 한 번만 스캔한다(scanCutoff). 스캔한 회원은 ruleOf()로 자신에게 맞는
+ * 규칙을 찾아 그 규칙의 기준으로 다시 판단한다. 규칙은 위에서부터 처음 맞는 규칙을 적용하며, (등급, 소셜 타입) 조합마다 적용할 규칙을 compile()에서
+ * EnumMap과 배열에 미리 채워 두므로 회원 한 명에 EnumMap 조회 한 번과 배열 조회 한 번만 한다. 규칙을 늘려도 스캔은 늘지 않는다.
+ * <p>
+ * 규칙 번호 0..ruleCount()-1 중 마지막은 어느 규칙에도 맞지 않는 회원에게 적용하는 기본 규칙(default-threshold)이다.
+ */
+public final class DormancyPolicy {
+
+    public static final String DEFAULT_RULE = "default";
+
+    private final String[] names;
+    private final Period[] thresholds;
+    // 등급별, 소셜 타입 번호(ordinal + 1, 없으면 0)별 규칙 번호
+    private final EnumMap<Grade, int[]> rulesByGrade = new EnumMap<>(Grade.class);
+    private final int[] rulesWithoutGrade;
+
+    private DormancyPolicy(List<Rule> rules, Period defaultThreshold) {
+        int count = rules.size() + 1;
+        names = new String[count];
+        thresholds = new Period[count];
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            Assert.notNull(rule.getThreshold(), "Dormancy rule " + i + " has no threshold");
+            names[i] = rule.getName() != null ? rule.getName() : "rule" + i;
+            thresholds[i] = rule.getThreshold();
+        }
+        names[count - 1] = DEFAULT_RULE;
+        thresholds[count - 1] = defaultThreshold;
+
+        for (Grade grade : Grade.values()) {
+            rulesByGrade.put(grade, resolve(rules, grade));
+        }
+        rulesWithoutGrade = resolve(rules, null);
+    }
+
+    public static DormancyPolicy compile(Policy policy) {
+        Assert.notNull(policy.getDefaultThreshold(), "Default dormancy threshold is required");
+        return new DormancyPolicy(new ArrayList<>(policy.getRules()),
+                policy.getDefaultThreshold());
+    }
+
+    /**
+     * 회원에게 적용할 규칙 번호. 객체를 만들지 않는다.
+     */
+    public int ruleOf(Grade grade, SocialType socialType) {
+        int[] rules = grade == null ? rulesWithoutGrade : rulesByGrade.get(grade);
+        return rules[socialType == null ? 0 : socialType.ordinal() + 1];
+    }
+
+    /**
+     * 규칙이 있으면 회원의 등급과 소셜 타입을 읽어야 한다. 없으면 모든 회원에게 기본 규칙을 적용한다.
+     */
+    public boolean hasRules() {
+        return names.length > 1;
+    }
+
+    public int ruleCount() {
+        return names.length;
+    }
+
+    public String name(int rule) {
+        return names[rule];
+    }
+
+    public Period threshold(int rule) {
+        return thresholds[rule];
+    }
+
+    /**
+     * 한 번의 스캔으로 모든 규칙의 대상을 찾는 기준(가장 늦은 기준 시각). 이보다 먼저 수정된 회원만 읽으면 된다.
+     */
+    public LocalDateTime scanCutoff(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(thresholds[0]);
+        for (Period threshold : thresholds) {
+            LocalDateTime candidate = now.minus(threshold);
+            if (candidate.isAfter(cutoff)) {
+                cutoff = candidate;
+            }
+        }
+        return cutoff;
+    }
+
+    /**
+     * 가장 이른 기준 시각. 증분 스캔에서 이전 실행 이후 새로 대상이 된 회원을 모두 포함하려면 이전 실행의 이 시각부터 읽어야 한다.
+     */
+    public LocalDateTime earliestCutoff(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(thresholds[0]);
+        for (Period threshold : thresholds) {
+            LocalDateTime candidate = now.minus(threshold);
+            if (candidate.isBefore(cutoff)) {
+                cutoff = candidate;
+            }
+        }
+        return cutoff;
+    }
+
+    /**
+     * 규칙 번호별 기준 시각. 이보다 먼저 수정된 회원이 그 규칙의 휴면 대상이다.
+     */
+    public LocalDateTime[] cutoffs(LocalDateTime now) {
+        LocalDateTime[] cutoffs = new LocalDateTime[names.length];
+        for (int i = 0; i < cutoffs.length; i++) {
+            cutoffs[i] = now.minus(thresholds[i]);
+        }
+        return cutoffs;
+    }
+
+    private static int[] resolve(List<Rule> rules, Grade grade) {
+        SocialType[] socialTypes = SocialType.values();
+        int[] resolved = new int[socialTypes.length + 1];
+        for (int i = 0; i < resolved.length; i++) {
+            resolved[i] = firstMatch(rules, grade, i == 0 ? null : socialTypes[i - 1]);
+        }
+        return resolved;
+    }
+
+    /**
+     * 처음 맞는 규칙 번호. 없으면 기본 규칙
+     */
+    private static int firstMatch(List<Rule> rules, Grade grade, SocialType socialType) {
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            if ((rule.getGrade() == null || rule.getGrade() == grade)
+                    && (rule.getSocialType() == null || rule.getSocialType() == socialType)) {
+                return i;
+            }
+        }
+        return rules.size();
+    }
+}
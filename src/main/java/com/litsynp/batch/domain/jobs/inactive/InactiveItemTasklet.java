@@ -2,15 +2,19 @@ package com.litsynp.batch.domain.jobs.inactive;
 
 import com.litsynp.batch.domain.User;
 import com.litsynp.batch.domain.enums.UserStatus;
-import com.litsynp.batch.repository.UserRepository;
+import com.litsynp.batch.domain.jobs.inactive.readers.JpaKeysetPagingItemReader;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.batch.core.StepContribution;
 import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.stereotype.Component;
 
@@ -20,7 +24,7 @@ import org.springframework.stereotype.Component;
  * <p>
  * 청크란 아이템이 트랜잭션에서 커밋되는 수를 뜻한다.
  * <p>
- * read한 데이터 수가 지정한 청크 단위(CHUNK_SIZE)와 일치하면, write를 수행하고 트랜잭션을 커밋한다.
+ * read한 데이터 수가 지정한 청크 단위(batch.inactive.chunk-size)와 일치하면, write를 수행하고 트랜잭션을 커밋한다.
  *
  * <h2>청크 지향 프로세싱의 이점은?</h2>
  * 청크로 나누지 않았을 때는 1000개 중 하나만 실패해도 나머지 999개의 데이터가 롤백된다.
@@ -39,30 +43,75 @@ import org.springframework.stereotype.Component;
  * <p>
  * Tasklet 인터페이스는 내부에 execute() 메서드 하나만 지원한다. 내부에 원하는 단일 작업을 구현하고 작업이 끝나면 RepeatStatus.FINISHED를
  * 반환한다. 작업이 계속된다면 RepeatStatus.CONTINUABLE을 반환한다.
+ *
+ * <h2>스트리밍 방식의 Tasklet</h2>
+ * 대상 회원 전체를 List로 읽어 한 트랜잭션에서 저장하면 대상 회원 수만큼 메모리와 언두 로그가 늘어나고, 하나만 실패해도 전부 롤백된다.
+ * <p>
+ * 그래서 execute() 한 번에 commitInterval 명만 커서(Stream)로 읽어 휴면으로 바꾸고, 영속성 컨텍스트를 비운 뒤 RepeatStatus.CONTINUABLE을
+ * 반환한다. TaskletStep은 execute() 호출마다 트랜잭션을 커밋하므로 대상 회원이 얼마나 많든 메모리 사용량은 commitInterval 명 분으로 일정하다.
+ * <p>
+ * 다음 execute()는 마지막으로 처리한 idx 다음부터 읽는다. 이 값은 Step의 ExecutionContext에 저장되므로 재시작해도 이어서 처리한다.
+ * <p>
+ * 가장 짧은 휴면 기준(DormancyPolicy)으로 읽고, 회원마다 맞는 규칙의 기준이 아직 지나지 않았으면 건너뛴다(filterCount).
  */
 @Component
 @AllArgsConstructor
 public class InactiveItemTasklet implements Tasklet {
 
-    private UserRepository userRepository;
+    private static final String LAST_IDX = "inactiveItemTasklet.lastIdx";
+    private static final String JPQL_QUERY = InactiveUserQueries.keysetQuery("select u", false,
+            false);
+
+    private EntityManager entityManager;
+    private InactiveJobProperties inactiveJobProperties;
+    private DormancyPolicy dormancyPolicy;
 
     @Override
     public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext)
             throws Exception {
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution()
+                .getExecutionContext();
+        long lastIdx = executionContext.getLong(LAST_IDX, 0L);
+        int commitInterval = inactiveJobProperties.getTasklet().getCommitInterval();
+        int fetchSize = inactiveJobProperties.getTasklet().getFetchSize();
+
         // reader
         Date nowDate = (Date) chunkContext.getStepContext().getJobParameters().get("nowDate");
-        LocalDateTime now = LocalDateTime.ofInstant(nowDate.toInstant(), ZoneId.systemDefault());
-        List<User> inactiveUsers = userRepository.findByUpdatedDateBeforeAndStatusEquals(
-                now.minusYears(1), UserStatus.INACTIVE);
-
-        // processor
-        inactiveUsers = inactiveUsers.stream()
-                .map(User::setInactive)
-                .toList();
+        LocalDateTime now = nowDate == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(nowDate.toInstant(), ZoneId.systemDefault());
+        LocalDateTime[] cutoffs = dormancyPolicy.cutoffs(now);
+        int read = 0;
+        int count = 0;
+        try (Stream<User> inactiveUsers = entityManager.createQuery(JPQL_QUERY, User.class)
+                .setParameter(JpaKeysetPagingItemReader.LAST_KEY_PARAMETER, lastIdx)
+                .setParameter("updatedBefore", dormancyPolicy.scanCutoff(now))
+                .setParameter("status", UserStatus.ACTIVE)
+                .setMaxResults(commitInterval)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            Iterator<User> iterator = inactiveUsers.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                contribution.incrementReadCount();
+                lastIdx = user.getIdx();
+                read++;
+                // processor
+                int rule = dormancyPolicy.ruleOf(user.getGrade(), user.getSocialType());
+                if (!user.getUpdatedDate().isBefore(cutoffs[rule])) {
+                    contribution.incrementFilterCount(1);
+                    continue;
+                }
+                user.setInactive();
+                count++;
+            }
+        }
 
-        // writer
-        userRepository.saveAll(inactiveUsers);
+        // writer - 변경 감지로 update한 다음 영속성 컨텍스트를 비운다
+        entityManager.flush();
+        entityManager.clear();
+        contribution.incrementWriteCount(count);
+        executionContext.putLong(LAST_IDX, lastIdx);
 
-        return RepeatStatus.FINISHED;
+        return read < commitInterval ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
     }
 }
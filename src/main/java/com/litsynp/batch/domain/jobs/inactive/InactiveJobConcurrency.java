@@ -0,0 +1,13 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+/**
+ * 동시에 실행할 파티션 수와 파티션마다 동시에 처리할 청크 수.
+ * <p>
+ * partitions * throttleLimit 만큼의 스레드가 동시에 커넥션을 사용하므로 두 값의 곱이 커넥션 풀을 넘지 않도록 정한다.
+ */
+public record InactiveJobConcurrency(int partitions, int throttleLimit) {
+
+    public int workers() {
+        return partitions * throttleLimit;
+    }
+}
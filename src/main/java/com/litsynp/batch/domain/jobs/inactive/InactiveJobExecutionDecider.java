@@ -1,22 +1,113 @@
 package com.litsynp.batch.domain.jobs.inactive;
 
-import java.util.Random;
+import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Strategy;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.job.flow.FlowExecutionStatus;
 import org.springframework.batch.core.job.flow.JobExecutionDecider;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
 
+/**
+ * 휴면 전환 대상 수를 등급별로 세어 실행 방식을 정한다.
+ * <ul>
+ *     <li>NOOP: 대상이 없으면 바로 끝낸다.</li>
+ *     <li>SINGLE: 대상이 batch.inactive.strategy.single-step-max-rows 이하면 스레드와 파티션을 만들지 않고 한 스레드로 처리한다.</li>
+ *     <li>PARTITIONED: 그보다 많으면 rows-per-partition 명마다 파티션 하나로 나눠 partitionerStep을 실행한다.</li>
+ * </ul>
+ * 대상 수는 (status, grade, updated_date) 인덱스만 읽는 group by 쿼리 하나로 센다. 정한 방식과 파티션 수, 읽을 updated_date 구간은 Job의
+ * ExecutionContext에 남기고, 재시작하면 처음 정한 방식을 그대로 사용해 실패한 Step을 이어서 실행한다. 휴면 기준이 규칙마다 다르면 가장 짧은 기준으로
+ * 세므로 실제로 전환되는 수보다 많을 수 있다.
+ */
 @Slf4j
+@Component
+@AllArgsConstructor
 public class InactiveJobExecutionDecider implements JobExecutionDecider {
 
+    public static final FlowExecutionStatus NOOP = new FlowExecutionStatus("NOOP");
+    public static final FlowExecutionStatus SINGLE = new FlowExecutionStatus("SINGLE");
+    public static final FlowExecutionStatus PARTITIONED = new FlowExecutionStatus("PARTITIONED");
+
+    public static final String STRATEGY = "strategy";
+    public static final String GRID_SIZE = "gridSize";
+
+    private static final String COUNT_SQL = "select grade, count(*) as candidates" +
+            InactiveUserQueries.CANDIDATES;
+    private static final String GROUP_BY = " group by grade";
+    private static final String NO_GRADE = "NONE";
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private InactiveScanWindowResolver inactiveScanWindowResolver;
+    private InactiveJobProperties inactiveJobProperties;
+
     @Override
     public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
-        if (new Random().nextInt() > 0) {
-            log.info("FlowExecutionStatus.COMPLETED");
-            return FlowExecutionStatus.COMPLETED;
+        ExecutionContext executionContext = jobExecution.getExecutionContext();
+        if (executionContext.containsKey(STRATEGY)) {
+            // 재시작
+            return new FlowExecutionStatus(executionContext.getString(STRATEGY));
+        }
+
+        InactiveScanWindow window = inactiveScanWindowResolver.resolve(
+                jobExecution.getJobParameters().getDate("nowDate"),
+                Boolean.parseBoolean(jobExecution.getJobParameters().getString("fullScan")));
+        Map<String, Long> candidates = countByGrade(window);
+        long total = candidates.values().stream().mapToLong(Long::longValue).sum();
+
+        Strategy strategy = inactiveJobProperties.getStrategy();
+        FlowExecutionStatus status;
+        if (total == 0) {
+            status = NOOP;
+        } else if (total <= strategy.getSingleStepMaxRows()) {
+            status = SINGLE;
+        } else {
+            status = PARTITIONED;
+            long gridSize = (total + strategy.getRowsPerPartition() - 1)
+                    / strategy.getRowsPerPartition();
+            executionContext.putInt(GRID_SIZE,
+                    (int) Math.max(1, Math.min(gridSize, strategy.getMaxGridSize())));
         }
-        log.info("FlowExecutionStatus.FAILED");
-        return FlowExecutionStatus.FAILED;
+        log.info("{} candidates {} -> {}", total, candidates, status.getName());
+
+        executionContext.putString(STRATEGY, status.getName());
+        if (!window.isFullScan()) {
+            executionContext.putString(InactiveUserRangePartitioner.UPDATED_AFTER,
+                    window.updatedAfter().toString());
+        }
+        executionContext.putString(InactiveUserRangePartitioner.UPDATED_BEFORE,
+                window.updatedBefore().toString());
+        candidates.forEach((grade, count) ->
+                executionContext.putLong("candidates." + grade, count));
+        return status;
+    }
+
+    private Map<String, Long> countByGrade(InactiveScanWindow window) {
+        String sql = countSql(window.isFullScan());
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("status", UserStatus.ACTIVE.name())
+                .addValue("updatedBefore", window.updatedBefore())
+                .addValue("updatedAfter", window.updatedAfter());
+
+        Map<String, Long> candidates = new TreeMap<>();
+        jdbcTemplate.query(sql, parameters, rs -> {
+            // 등급이 없는 회원도 휴면 전환 대상이다
+            String grade = rs.getString("grade");
+            candidates.put(grade == null ? NO_GRADE : grade, rs.getLong("candidates"));
+        });
+        return candidates;
+    }
+
+    /**
+     * 등급별 대상 수를 세는 SQL
+     */
+    static String countSql(boolean fullScan) {
+        return COUNT_SQL + (fullScan ? "" : InactiveUserQueries.WINDOW_CONDITION) + GROUP_BY;
     }
 }
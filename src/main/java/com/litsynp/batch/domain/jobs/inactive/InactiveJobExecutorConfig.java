@@ -0,0 +1,143 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.ExecutorMode;
+import com.litsynp.batch.support.InstrumentedTaskExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadFactory;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 휴면회원 배치가 사용하는 TaskExecutor를 생성한다.
+ * <p>
+ * SimpleAsyncTaskExecutor는 Task마다 스레드를 새로 만들고 개수 제한이 없어서, gridSize를 늘리면 커넥션 풀보다 많은 스레드가 getConnection()에서
+ * 대기하게 된다. 여기서는 커넥션 풀 크기에서 동시에 실행할 파티션 수와 청크 수를 계산하고, 그 수만큼만 스레드를 실행한다.
+ * <p>
+ * 파티션을 실행하는 스레드는 청크 스레드가 끝나기를 기다리기만 하므로, 같은 풀을 쓰면 파티션 스레드가 풀을 모두 차지해 청크 Task가 실행되지 못할 수 있다.
+ * 그래서 파티션용(partitionTaskExecutor)과 청크용(taskExecutor)을 나눈다.
+ */
+@Configuration
+@Slf4j
+public class InactiveJobExecutorConfig {
+
+    // 커넥션 풀 크기를 알 수 없을 때 사용하는 HikariCP 기본값
+    private static final int DEFAULT_POOL_SIZE = 10;
+    // JobRepository 메타데이터 갱신에 사용하는 커넥션
+    private static final int RESERVED_CONNECTIONS = 1;
+    // 청크 트랜잭션의 커넥션 + Reader가 페이지를 읽을 때 사용하는 커넥션
+    private static final int CONNECTIONS_PER_WORKER = 2;
+
+    @Bean
+    public InactiveJobConcurrency inactiveJobConcurrency(DataSource dataSource,
+            InactiveJobProperties inactiveJobProperties) {
+        InactiveJobProperties.Executor executor = inactiveJobProperties.getExecutor();
+
+        int connections = connectionPoolSize(dataSource);
+        int workers = Math.max(1, (connections - RESERVED_CONNECTIONS) / CONNECTIONS_PER_WORKER);
+        if (executor.getMaxConcurrency() > 0) {
+            workers = Math.min(workers, executor.getMaxConcurrency());
+        }
+        int throttleLimit = Math.max(1, Math.min(executor.getThrottleLimit(), workers));
+        int partitions = Math.max(1, workers / throttleLimit);
+
+        log.info("Connection pool size {}, running {} partitions x {} chunks", connections,
+                partitions, throttleLimit);
+        return new InactiveJobConcurrency(partitions, throttleLimit);
+    }
+
+    /**
+     * 파티션을 실행한다. 대기 중인 파티션은 커넥션을 사용하지 않으므로 큐 크기는 제한하지 않는다.
+     */
+    @Bean
+    public TaskExecutor partitionTaskExecutor(InactiveJobConcurrency inactiveJobConcurrency,
+            InactiveJobProperties inactiveJobProperties, MeterRegistry meterRegistry) {
+        TaskExecutor taskExecutor = createTaskExecutor("Partition_Task",
+                inactiveJobConcurrency.partitions(), Integer.MAX_VALUE,
+                inactiveJobProperties.getExecutor().getMode());
+        return new InstrumentedTaskExecutor(taskExecutor, "partitionTaskExecutor", meterRegistry);
+    }
+
+    /**
+     * 멀티 스레드 Step의 청크를 실행한다. 파티션마다 throttleLimit 개의 청크를 동시에 실행한다.
+     */
+    @Bean
+    public TaskExecutor taskExecutor(InactiveJobConcurrency inactiveJobConcurrency,
+            InactiveJobProperties inactiveJobProperties, MeterRegistry meterRegistry) {
+        int workers = inactiveJobConcurrency.workers();
+        // Task에 할당되는 이름 설정 - 첫 번째 Task는 Batch_Task1
+        TaskExecutor taskExecutor = createTaskExecutor("Batch_Task", workers, workers,
+                inactiveJobProperties.getExecutor().getMode());
+        return new InstrumentedTaskExecutor(taskExecutor, "taskExecutor", meterRegistry);
+    }
+
+    /**
+     * pipelined 모드에서 Reader가 다음 페이지를 미리 읽는 Task를 실행한다. Task는 Step이 끝날 때까지 실행되므로 동시에 실행되는 파티션 수만큼 스레드를
+     * 두고, 그보다 많이 열린 Reader의 Task는 큐에서 기다리게 한다.
+     */
+    @Bean
+    public TaskExecutor prefetchTaskExecutor(InactiveJobConcurrency inactiveJobConcurrency,
+            InactiveJobProperties inactiveJobProperties, MeterRegistry meterRegistry) {
+        TaskExecutor taskExecutor = createTaskExecutor("Prefetch_Task",
+                inactiveJobConcurrency.partitions(), Integer.MAX_VALUE,
+                inactiveJobProperties.getExecutor().getMode());
+        return new InstrumentedTaskExecutor(taskExecutor, "prefetchTaskExecutor", meterRegistry);
+    }
+
+    private TaskExecutor createTaskExecutor(String threadNamePrefix, int concurrency,
+            int queueCapacity, ExecutorMode mode) {
+        if (mode == ExecutorMode.VIRTUAL) {
+            ThreadFactory virtualThreadFactory = virtualThreadFactory(threadNamePrefix);
+            if (virtualThreadFactory != null) {
+                // 가상 스레드는 Task마다 새로 만들고, 동시 실행 수를 넘으면 submit한 스레드가 대기한다
+                SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(
+                        virtualThreadFactory);
+                taskExecutor.setConcurrencyLimit(concurrency);
+                return taskExecutor;
+            }
+        }
+
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setThreadNamePrefix(threadNamePrefix);
+        taskExecutor.setCorePoolSize(concurrency);
+        taskExecutor.setMaxPoolSize(concurrency);
+        taskExecutor.setQueueCapacity(queueCapacity);
+        // Job이 끝난 뒤에 풀의 스레드 때문에 JVM이 종료되지 않는 일이 없도록 한다
+        taskExecutor.setDaemon(true);
+        return taskExecutor;
+    }
+
+    /**
+     * JDK 21의 Thread.ofVirtual()로 가상 스레드 팩토리를 만든다. 빌드는 JDK 17 기준이므로 리플렉션으로 호출한다.
+     */
+    private ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class)
+                    .invoke(builder, threadNamePrefix, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            log.warn("Virtual threads are not available on Java {}, using platform threads",
+                    Runtime.version());
+            return null;
+        }
+    }
+
+    private int connectionPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the connection pool size", e);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,435 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import java.time.Duration;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 휴면회원 배치(inactiveUserJob)의 실행 방식을 설정한다.
+ * <p>
+ * application.yml의 batch.inactive 하위 값으로 바인딩된다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "batch.inactive")
+public class InactiveJobProperties {
+
+    /**
+     * 커밋 단위이자 Reader가 한 번에 읽는 페이지 크기
+     */
+    private int chunkSize = 15;
+
+    /**
+     * 커밋 시간에 따라 청크 크기를 조절하는 설정. 켜면 chunkSize는 시작 크기가 된다.
+     */
+    private AdaptiveChunk adaptiveChunk = new AdaptiveChunk();
+
+    /**
+     * Job을 실행하기 전에 휴면 전환 대상 조회가 인덱스를 쓰는지 EXPLAIN으로 확인할지 여부
+     */
+    private boolean verifyQueryPlans = false;
+
+    /**
+     * 휴면 전환 대상을 찾는 범위
+     */
+    private ScanMode scanMode = ScanMode.FULL;
+
+    /**
+     * 등급, 소셜 타입별 휴면 기준
+     */
+    private Policy policy = new Policy();
+
+    /**
+     * 멀티 스레드 Step(inactiveUserStep)에서 스레드가 한 번에 가져가 읽는 idx 구간의 너비
+     */
+    private int claimWidth = 1000;
+
+    /**
+     * 휴면 전환 예정 안내 파일 설정
+     */
+    private Notification notification = new Notification();
+
+    /**
+     * 대상 수에 따라 실행 방식을 정하는 InactiveJobExecutionDecider 설정
+     */
+    private Strategy strategy = new Strategy();
+
+    /**
+     * 파티션 하나를 처리하는 Step의 실행 방식
+     */
+    private StepMode stepMode = StepMode.CHUNK;
+
+    /**
+     * stepMode가 PIPELINED일 때의 설정
+     */
+    private Pipeline pipeline = new Pipeline();
+
+    /**
+     * 파티션을 실행하는 위치
+     */
+    private PartitionMode partitionMode = PartitionMode.LOCAL;
+
+    /**
+     * partitionMode가 REMOTE일 때의 Manager, Worker 설정
+     */
+    private Remote remote = new Remote();
+
+    /**
+     * 휴면 전환 결과를 쓰는 방식
+     */
+    private WriterType writer = WriterType.JDBC;
+
+    /**
+     * 휴면으로 바꾼 회원의 개인정보를 member_dormant로 옮기는 설정
+     */
+    private Archive archive = new Archive();
+
+    /**
+     * Job이 끝날 때 휴면 회원 idx 비트맵 파일을 발행하는 설정
+     */
+    private Bitmap bitmap = new Bitmap();
+
+    /**
+     * 쓰기에 실패한 청크를 처리하는 방식
+     */
+    private FaultTolerance faultTolerance = new FaultTolerance();
+
+    /**
+     * 파티션과 멀티 스레드 Step을 실행하는 TaskExecutor 설정
+     */
+    private Executor executor = new Executor();
+
+    /**
+     * InactiveItemTasklet 설정
+     */
+    private Tasklet tasklet = new Tasklet();
+
+    /**
+     * InactiveUserRangePartitioner와 inactiveUserIdBufferReader가 대상 키를 담는 버퍼 설정
+     */
+    private IdBuffer idBuffer = new IdBuffer();
+
+    /**
+     * 메트릭 내보내기 설정
+     */
+    private Metrics metrics = new Metrics();
+
+    @Getter
+    @Setter
+    public static class AdaptiveChunk {
+
+        private boolean enabled = true;
+
+        private int minSize = 15;
+
+        private int maxSize = 1000;
+
+        /**
+         * 청크 하나의 트랜잭션이 이 시간 안에 끝나도록 크기를 조절한다
+         */
+        private Duration targetLatency = Duration.ofMillis(500);
+
+        /**
+         * 복제 지연을 초 단위 숫자로 반환하는 쿼리. 비어 있으면 확인하지 않는다.
+         */
+        private String lagQuery;
+
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        /**
+         * 복제 지연을 확인하는 청크 간격
+         */
+        private int lagCheckInterval = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+
+        /**
+         * 어느 규칙에도 맞지 않는 회원은 마지막으로 수정한 뒤 이 기간이 지나면 휴면으로 전환한다
+         */
+        private Period defaultThreshold = Period.ofYears(1);
+
+        /**
+         * 위에서부터 처음 맞는 규칙을 적용한다
+         */
+        private List<Rule> rules = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Rule {
+
+        /**
+         * 규칙별 전환 수를 기록할 때 사용하는 이름
+         */
+        private String name;
+
+        /**
+         * 비어 있으면 모든 등급
+         */
+        private Grade grade;
+
+        /**
+         * 비어 있으면 모든 소셜 타입
+         */
+        private SocialType socialType;
+
+        private Period threshold;
+    }
+
+    @Getter
+    @Setter
+    public static class Notification {
+
+        /**
+         * 켜면 휴면 전환 전에 안내 대상을 directory에 gzip으로 압축한 NDJSON 파일로 내보낸다
+         */
+        private boolean enabled = false;
+
+        /**
+         * 안내 파일을 내보낼 디렉터리. 안내에는 회원의 이메일이 들어가므로 기본값 없이, 켤 때 직접 지정해야 한다
+         */
+        private String directory;
+
+        /**
+         * 회원에게 맞는 규칙(policy)의 기준이 지나기 이 기간 전에 안내한다
+         */
+        private Period noticeLead = Period.ofMonths(1);
+
+        /**
+         * 안내 Step이 성공한 이전 실행이 없을 때 안내하는 구간. 이전 실행이 있으면 그 실행의 nowDate 이후에 안내 시점이 된 회원을 모두 안내하므로,
+         * 실행이 실패하거나 건너뛰어도 빠지는 회원 없이 한 번씩만 안내된다.
+         */
+        private Duration noticeWindow = Duration.ofDays(1);
+
+        /**
+         * 커밋 단위이자 gzip 멤버 하나에 담는 안내 수
+         */
+        private int chunkSize = 1000;
+
+        private int fetchSize = 1000;
+
+        /**
+         * 압축된 파일이 이 크기를 넘으면 다음 파일에 쓴다
+         */
+        private DataSize maxFileSize = DataSize.ofMegabytes(64);
+    }
+
+    @Getter
+    @Setter
+    public static class Strategy {
+
+        /**
+         * 대상이 이 수 이하면 파티션과 스레드 없이 한 스레드로 처리한다
+         */
+        private long singleStepMaxRows = 10_000;
+
+        /**
+         * 파티션 하나가 처리할 대상 수. 파티션 수는 대상 수 / rows-per-partition을 올림한 값이다.
+         */
+        private long rowsPerPartition = 50_000;
+
+        private int maxGridSize = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class Pipeline {
+
+        /**
+         * Reader가 미리 읽어 두는 최대 페이지 수. 가득 차면 처리와 쓰기가 따라올 때까지 읽기를 멈춘다.
+         */
+        private int prefetchPages = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class Remote {
+
+        /**
+         * 이 프로세스에서 batch_partition_request의 파티션을 가져와 실행할지 여부
+         */
+        private boolean workerEnabled = false;
+
+        /**
+         * 요청을 가져간 Worker를 구분하는 값. 비어 있으면 pid@hostname
+         */
+        private String workerId;
+
+        /**
+         * Worker가 이 시간 동안 점유 기간을 늘리지 않으면 다른 Worker가 파티션을 가져간다
+         */
+        private Duration leaseTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Manager가 파티션 상태를, Worker가 대기 중인 요청을 확인하는 간격
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * Manager가 모든 파티션이 끝나기를 기다리는 최대 시간. 0이면 제한하지 않는다.
+         */
+        private Duration timeout = Duration.ZERO;
+    }
+
+    @Getter
+    @Setter
+    public static class Archive {
+
+        /**
+         * 켜면 휴면으로 바꾼 회원의 name, email, password, principal을 같은 청크 트랜잭션에서 member_dormant로 옮기고 member에서는 지운다
+         */
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Bitmap {
+
+        /**
+         * 켜면 Job의 마지막 Step(dormantBitmapStep)에서 휴면 회원 idx 비트맵을 path에 발행한다
+         */
+        private boolean enabled = false;
+
+        /**
+         * 비트맵 파일. 로그인, 알림 서비스가 함께 읽는 파일이므로 기본값을 두지 않고, 켤 때는 반드시 지정해야 한다
+         */
+        private String path;
+
+        /**
+         * 이전 세대 이후 변경된 회원을 조회할 때 이전 세대의 시각보다 이만큼 앞부터 조회한다 (조회할 때 커밋되지 않았던 변경을 놓치지 않기 위해)
+         */
+        private Duration overlap = Duration.ofMinutes(5);
+
+        private int fetchSize = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class FaultTolerance {
+
+        /**
+         * 켜면 실패한 청크를 반씩 나눠 실패한 회원만 batch_inactive_skip에 남기고 건너뛰며, 데드락은 청크를 다시 실행한다. JDBC writer에서만
+         * 사용할 수 있다.
+         */
+        private boolean enabled = false;
+
+        /**
+         * 데드락 등으로 실패한 청크를 다시 실행하는 최대 횟수
+         */
+        private int retryLimit = 5;
+
+        /**
+         * 다시 실행하기 전에 기다리는 시간. 매번 두 배까지 임의로 늘리며 max-backoff를 넘지 않는다.
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        private Duration maxBackoff = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Executor {
+
+        private ExecutorMode mode = ExecutorMode.POOL;
+
+        /**
+         * 동시에 청크를 처리하는 최대 스레드 수. 0이면 DataSource 커넥션 풀 크기로 정한다.
+         */
+        private int maxConcurrency = 0;
+
+        /**
+         * 파티션 하나가 동시에 처리하는 청크 수
+         */
+        private int throttleLimit = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class Tasklet {
+
+        /**
+         * execute() 한 번(트랜잭션 하나)에 처리하는 회원 수
+         */
+        private int commitInterval = 1000;
+
+        /**
+         * 커서로 읽을 때 한 번에 가져오는 행 수
+         */
+        private int fetchSize = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class IdBuffer {
+
+        /**
+         * 키가 이 개수(8바이트씩)를 넘으면 spill-directory의 메모리 매핑 파일로 옮긴다
+         */
+        private int spillThreshold = 1_000_000;
+
+        private String spillDirectory = System.getProperty("java.io.tmpdir");
+
+        /**
+         * 키를 커서로 읽을 때 한 번에 가져오는 행 수
+         */
+        private int fetchSize = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        /**
+         * Job이 끝날 때 Prometheus 형식으로 메트릭을 쓸 파일. 비어 있으면 쓰지 않는다.
+         */
+        private String exportPath = System.getProperty("java.io.tmpdir")
+                + "/inactive-user-job.prom";
+    }
+
+    public enum ScanMode {
+        // 1년 전보다 먼저 수정된 활성 회원 전체를 찾는다
+        FULL,
+        // 마지막으로 성공한 실행 이후에 1년이 지난 회원만 찾는다
+        INCREMENTAL
+    }
+
+    public enum StepMode {
+        // 스레드마다 읽기, 처리, 쓰기를 차례로 실행하는 멀티 스레드 청크 Step
+        CHUNK,
+        // 다음 페이지 읽기를 별도 Task에서 실행해 처리, 쓰기와 겹쳐 실행하는 Step
+        PIPELINED,
+        // 파티션의 대상 idx를 먼저 모두 읽어 두고 청크마다 where idx in (...)으로 행을 읽는 Step
+        ID_BUFFER
+    }
+
+    public enum PartitionMode {
+        // partitionTaskExecutor의 스레드에서 파티션을 실행한다
+        LOCAL,
+        // batch_partition_request 테이블을 통해 다른 JVM의 Worker가 파티션을 실행한다
+        REMOTE
+    }
+
+    public enum ExecutorMode {
+        // 커넥션 풀 크기에 맞춘 ThreadPoolTaskExecutor
+        POOL,
+        // 동시 실행 수를 제한한 가상 스레드 (JDK 21 이상, 그 이하에서는 플랫폼 스레드로 대신한다)
+        VIRTUAL
+    }
+
+    public enum WriterType {
+        // 청크당 update ... where idx in (...) 한 번으로 상태만 변경한다
+        JDBC,
+        // JpaItemWriter로 엔티티 전체를 merge한다
+        JPA
+    }
+}
@@ -0,0 +1,149 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmapTasklet;
+import com.litsynp.batch.domain.jobs.inactive.readers.IdRangeClaimingItemReader;
+import com.litsynp.batch.domain.jobs.inactive.readers.JpaKeysetPagingItemReader;
+import com.litsynp.batch.support.QueryPlanVerifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 휴면 전환 대상 조회가 member 테이블 전체를 읽지 않는지 EXPLAIN으로 확인한다.
+ * <p>
+ * batch.inactive.verify-query-plans가 true면 Job을 실행하는 JobLauncherApplicationRunner보다 먼저 실행해, 인덱스가 빠진 DB에서는
+ * Job을 시작하지 않는다. 각 쿼리는 Reader와 Partitioner가 실행하는 SQL을 같은 InactiveUserQueries 조각으로 만들고(JPQL은 toSql()로
+ * 옮긴다), 파라미터 자리에만 값을 넣었다. scan-mode가 full일 때와 incremental일 때의 쿼리를 모두 확인한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "batch.inactive", name = "verify-query-plans",
+        havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@AllArgsConstructor
+public class InactiveQueryPlanCheck implements ApplicationRunner {
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+    private static final Pattern POSITIONAL_PARAMETER = Pattern.compile("\\?");
+
+    // 이름 있는 파라미터에 넣을 값. 실행 계획은 값이 아니라 조건과 인덱스로 정해지므로 아무 값이나 넣는다
+    private static final Map<String, String> LITERALS = Map.of(
+            "status", "'ACTIVE'",
+            "updatedAfter", "timestamp '1999-12-31 00:00:00'",
+            "updatedBefore", "timestamp '2000-01-01 00:00:00'",
+            IdRangeClaimingItemReader.FROM_PARAMETER, "0",
+            IdRangeClaimingItemReader.TO_PARAMETER, "1000000",
+            JpaKeysetPagingItemReader.LAST_KEY_PARAMETER, "0",
+            "minIdx", "0",
+            "maxIdx", "1000000");
+
+    // 키셋 Reader의 페이지 크기 (Hibernate가 setMaxResults로 붙이는 limit)
+    private static final String PAGE = " limit 15";
+
+    public static final Map<String, String> DORMANT_CANDIDATE_QUERIES = candidateQueries();
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        new QueryPlanVerifier(jdbcTemplate).verify(DORMANT_CANDIDATE_QUERIES);
+        log.info("All {} dormant candidate queries use an index",
+                DORMANT_CANDIDATE_QUERIES.size());
+    }
+
+    /**
+     * scan-mode가 full일 때(구간 없음)와 incremental일 때(구간 있음) 실행하는 쿼리를 모두 만든다. 키셋 Reader는 파티셔닝 없이 실행될 때와
+     * 파티션의 구간 끝(maxIdx)이 있을 때를 모두 확인한다.
+     */
+    private static Map<String, String> candidateQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        // UserRepository.findByUpdatedDateBeforeAndStatusEquals, inactiveUserJpaReader
+        queries.put("inactiveUserJpaReader",
+                bind(InactiveUserQueries.toSql("select *" + InactiveUserQueries.JPQL_CANDIDATES)));
+        // UserRepository.findByUpdatedDateBeforeAndStatusEqualsAndGradeEquals
+        queries.put("findByUpdatedDateBeforeAndStatusEqualsAndGradeEquals",
+                bind("select *" + InactiveUserQueries.CANDIDATES + " and grade = 'VIP'"));
+        for (boolean windowed : new boolean[]{false, true}) {
+            String variant = windowed ? "[windowed]" : "[full]";
+            String candidates = InactiveUserQueries.CANDIDATES
+                    + (windowed ? InactiveUserQueries.WINDOW_CONDITION : "");
+            for (boolean bounded : new boolean[]{false, true}) {
+                String range = bounded ? "[partition]" : "";
+                // inactiveUserKeysetReader, InactiveItemTasklet
+                queries.put("inactiveUserKeysetReader" + variant + range,
+                        bind(InactiveUserQueries.toSql(InactiveUserQueries.keysetQuery(
+                                "select *", windowed, bounded)) + PAGE));
+                // inactiveUserRowReader (규칙이 있으면 InactiveUserRow의 모든 컬럼을 읽는다)
+                queries.put("inactiveUserRowReader" + variant + range,
+                        bind(InactiveUserQueries.toSql(InactiveUserQueries.keysetQuery(
+                                "select " + InactiveUserQueries.ROW_PROPERTIES, windowed,
+                                bounded)) + PAGE));
+                // inactiveUserIdBufferReader가 먼저 읽는 키 (행은 기본 키로만 읽는다)
+                queries.put("inactiveUserIdBufferReader.keys" + variant + range,
+                        bind(InactiveUserQueries.keyQuery(windowed, bounded)));
+            }
+            queries.put("inactiveUserClaimingReader" + variant,
+                    bind("select " + InactiveUserQueries.ROW_COLUMNS + candidates
+                            + InactiveUserQueries.CLAIMED_RANGE
+                            + InactiveUserQueries.ORDER_BY_IDX));
+            queries.put("inactiveUserClaimingReader.bounds" + variant,
+                    bind(InactiveUserQueries.IDX_BOUNDS + candidates));
+            queries.put("InactiveUserRangePartitioner" + variant,
+                    bind(InactiveUserRangePartitioner.keySql(!windowed)));
+            queries.put("InactiveJobExecutionDecider" + variant,
+                    bind(InactiveJobExecutionDecider.countSql(!windowed)));
+        }
+        // dormancyNoticeReader (status, updatedAfter, updatedBefore 순서)
+        queries.put("dormancyNoticeReader", bind(InactiveUserQueries.NOTICE_SQL,
+                LITERALS.get("status"), LITERALS.get("updatedAfter"),
+                LITERALS.get("updatedBefore")));
+        // DormantBitmapTasklet (이전 세대 이후 변경된 회원)
+        queries.put("DormantBitmapTasklet.delta", bind(DormantBitmapTasklet.DELTA_SQL,
+                Map.of("status", "'INACTIVE'", "since", LITERALS.get("updatedBefore"))));
+        return Collections.unmodifiableMap(queries);
+    }
+
+    private static String bind(String sql) {
+        return bind(sql, LITERALS);
+    }
+
+    /**
+     * :name 파라미터를 literals의 값으로 바꾼다. 값이 없는 파라미터가 있으면 EXPLAIN할 수 없으므로 실패한다.
+     */
+    private static String bind(String sql, Map<String, String> literals) {
+        return NAMED_PARAMETER.matcher(sql).replaceAll(match -> {
+            String literal = literals.get(match.group(1));
+            if (literal == null) {
+                throw new IllegalStateException(
+                        "No literal for parameter :" + match.group(1) + " in " + sql);
+            }
+            return Matcher.quoteReplacement(literal);
+        });
+    }
+
+    /**
+     * ? 파라미터를 순서대로 literals로 바꾼다.
+     */
+    private static String bind(String sql, String... literals) {
+        Iterator<String> values = Arrays.asList(literals).iterator();
+        String bound = POSITIONAL_PARAMETER.matcher(sql)
+                .replaceAll(match -> Matcher.quoteReplacement(values.next()));
+        if (values.hasNext()) {
+            throw new IllegalStateException("Too many literals for " + sql);
+        }
+        return bound;
+    }
+}
@@ -0,0 +1,23 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import java.time.LocalDateTime;
+
+/**
+ * 휴면 전환 대상을 찾을 updated_date 구간. updatedAfter <= updated_date < updatedBefore
+ *
+ * @param updatedAfter  구간의 시작(포함). null이면 처음부터 찾는다.
+ * @param updatedBefore 구간의 끝(제외). 이보다 먼저 수정된 회원이 휴면 전환 대상이다.
+ */
+public record InactiveScanWindow(LocalDateTime updatedAfter, LocalDateTime updatedBefore) {
+
+    /**
+     * updatedBefore보다 먼저 수정된 회원 전체를 찾는다.
+     */
+    public static InactiveScanWindow before(LocalDateTime updatedBefore) {
+        return new InactiveScanWindow(null, updatedBefore);
+    }
+
+    public boolean isFullScan() {
+        return updatedAfter == null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.ScanMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 이번 실행에서 읽을 updated_date 구간을 정한다.
+ * <p>
+ * 전체 스캔은 매번 휴면 기준(DormancyPolicy)이 지난 활성 회원 전체를 찾는다. 증분 모드(batch.inactive.scan-mode=incremental)에서는 마지막으로
+ * 성공한 실행의 nowDate를 기준선(high-water mark)으로 삼아, 그 뒤로 기준이 지난 회원만 찾는다. 기준이 1년 하나면 [이전 nowDate - 1년, 이번
+ * nowDate - 1년) 구간이므로 매일 실행하면 하루 분량의 행만 읽는다. 규칙마다 기준이 다르면 모든 규칙의 구간을 포함하도록 [이전 nowDate - 가장 긴 기준, 이번 nowDate -
+ * 가장 짧은 기준)을 읽고, 회원마다 자신의 규칙으로 다시 판단한다.
+ * <p>
+ * 기준선은 JobRepository에 남은 COMPLETED 실행의 nowDate 파라미터에서 가져오므로 따로 저장하지 않는다. nowDate 없이 실행하거나,
+ * 성공한 실행이 없거나, fullScan=true 파라미터를 주면 전체 스캔한다. 기준선보다 오래된 updated_date로 회원을 직접 넣은 경우처럼 구간 밖에 대상이
+ * 생겼을 때도 fullScan=true로 한 번 실행하면 된다.
+ * <p>
+ * 휴면 전환 예정 안내도 같은 방식으로, 안내 Step(inactiveNoticeStep)이 마지막으로 성공한 실행의 nowDate부터 이번 nowDate까지 안내 시점이 된 회원을
+ * 찾는다(noticeSince). 실행이 실패했거나 하루를 건너뛰어도 다음 실행이 그 사이의 회원을 모두 안내한다.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class InactiveScanWindowResolver {
+
+    private static final String JOB_NAME = "inactiveUserJob";
+    private static final String NOW_DATE = "nowDate";
+    private static final String NOTICE_STEP = "inactiveNoticeStep";
+    private static final int INSTANCE_PAGE_SIZE = 20;
+
+    private JobExplorer jobExplorer;
+    private InactiveJobProperties inactiveJobProperties;
+    private DormancyPolicy dormancyPolicy;
+
+    public InactiveScanWindow resolve(Date nowDate, boolean fullScan) {
+        LocalDateTime now = nowDate == null ? LocalDateTime.now() : toLocalDateTime(nowDate);
+        InactiveScanWindow full = InactiveScanWindow.before(dormancyPolicy.scanCutoff(now));
+        if (fullScan || nowDate == null
+                || inactiveJobProperties.getScanMode() != ScanMode.INCREMENTAL) {
+            return full;
+        }
+
+        InactiveScanWindow window = lastNowDate(nowDate,
+                execution -> execution.getStatus() == BatchStatus.COMPLETED)
+                .map(previous -> new InactiveScanWindow(
+                        dormancyPolicy.earliestCutoff(toLocalDateTime(previous)),
+                        full.updatedBefore()))
+                .orElse(full);
+        log.info("Scanning members updated in [{}, {})", window.updatedAfter(),
+                window.updatedBefore());
+        return window;
+    }
+
+    /**
+     * 이번 실행에서 안내할 구간의 시작 시점. 안내 Step이 성공한 가장 최근 실행의 nowDate이고, 그런 실행이 없으면 nowDate - notice-window다.
+     */
+    public LocalDateTime noticeSince(Date nowDate) {
+        LocalDateTime now = nowDate == null ? LocalDateTime.now() : toLocalDateTime(nowDate);
+        LocalDateTime since = Optional.ofNullable(nowDate)
+                .flatMap(date -> lastNowDate(date, InactiveScanWindowResolver::noticeCompleted))
+                .map(InactiveScanWindowResolver::toLocalDateTime)
+                .orElseGet(() -> now.minus(
+                        inactiveJobProperties.getNotification().getNoticeWindow()));
+        log.info("Noticing members who reached the notice age in [{}, {})", since, now);
+        return since;
+    }
+
+    /**
+     * 이번 nowDate보다 이른 nowDate로 실행해 completed를 만족한 가장 최근 실행의 nowDate
+     */
+    private Optional<Date> lastNowDate(Date nowDate, Predicate<JobExecution> completed) {
+        for (int start = 0; ; start += INSTANCE_PAGE_SIZE) {
+            // 최근에 만든 인스턴스부터 반환한다
+            List<JobInstance> instances = jobExplorer.getJobInstances(JOB_NAME, start,
+                    INSTANCE_PAGE_SIZE);
+            for (JobInstance instance : instances) {
+                Optional<Date> completed = jobExplorer.getJobExecutions(instance).stream()
+                        .filter(completed)
+                        .map(JobExecution::getJobParameters)
+                        .map(parameters -> parameters.getDate(NOW_DATE))
+                        .filter(date -> date != null && date.before(nowDate))
+                        .findFirst();
+                if (completed.isPresent()) {
+                    return completed;
+                }
+            }
+            if (instances.size() < INSTANCE_PAGE_SIZE) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * 재시작한 실행은 이미 성공한 안내 Step을 다시 실행하지 않으므로, Job의 상태가 아니라 안내 Step의 상태를 본다.
+     */
+    private static boolean noticeCompleted(JobExecution execution) {
+        return execution.getStepExecutions().stream()
+                .anyMatch(stepExecution -> NOTICE_STEP.equals(stepExecution.getStepName())
+                        && stepExecution.getStatus() == BatchStatus.COMPLETED);
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -2,137 +2,431 @@ package com.litsynp.batch.domain.jobs.inactive;
 
 import com.litsynp.batch.domain.User;
 import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
 import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.AdaptiveChunk;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Bitmap;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.FaultTolerance;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.IdBuffer;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Notification;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.PartitionMode;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Remote;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.StepMode;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.WriterType;
+import com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmapTasklet;
 import com.litsynp.batch.domain.jobs.inactive.listener.InactiveJobListener;
 import com.litsynp.batch.domain.jobs.inactive.listener.InactiveStepListener;
+import com.litsynp.batch.domain.jobs.inactive.readers.IdBufferItemReader;
+import com.litsynp.batch.domain.jobs.inactive.readers.IdRangeClaimingItemReader;
+import com.litsynp.batch.domain.jobs.inactive.readers.JpaKeysetPagingItemReader;
+import com.litsynp.batch.domain.jobs.inactive.remote.DatabasePartitionHandler;
+import com.litsynp.batch.domain.jobs.inactive.remote.InactivePartitionWorker;
+import com.litsynp.batch.domain.jobs.inactive.remote.PartitionRequestRepository;
+import com.litsynp.batch.domain.jobs.inactive.writers.BinarySplitItemWriter;
+import com.litsynp.batch.domain.jobs.inactive.writers.InactiveUserArchiveItemWriter;
+import com.litsynp.batch.domain.jobs.inactive.writers.InactiveUserJdbcItemWriter;
+import com.litsynp.batch.domain.jobs.inactive.writers.InactiveUserJpqlItemWriter;
+import com.litsynp.batch.domain.jobs.inactive.writers.RollingGzipFileItemWriter;
 import com.litsynp.batch.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 import javax.persistence.EntityManagerFactory;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.builder.FlowBuilder.TransitionBuilder;
+import org.springframework.batch.core.job.builder.FlowJobBuilder;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.builder.JobFlowBuilder;
 import org.springframework.batch.core.job.flow.Flow;
-import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.PartitionStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
 import org.springframework.batch.item.database.JpaPagingItemReader;
-import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 @Configuration
+@EnableConfigurationProperties(InactiveJobProperties.class)
 @AllArgsConstructor
 @Slf4j
 public class InactiveUserJobConfig {
 
-    private static final int CHUNK_SIZE = 15;
     private final EntityManagerFactory entityManagerFactory;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InactiveJobProperties inactiveJobProperties;
+    private final TaskExecutor prefetchTaskExecutor;
     private UserRepository userRepository;
 
     @Bean
     public Job inactiveUserJob(JobBuilderFactory jobBuilderFactory,
-            InactiveJobListener inactiveJobListener, Flow multiFlow, Step partitionerStep) {
-        return jobBuilderFactory.get("inactiveUserJob")
-                .preventRestart()  // Job의 재실행을 막음
-                .listener(inactiveJobListener)  // Job Listener 등록
-                .start(partitionerStep)
-//                .start(multiFlow)
-//                .end()
+            InactiveJobListener inactiveJobListener, InactiveJobExecutionDecider decider,
+            Step inactiveNoticeStep, Step inactiveSingleStep, Step partitionerStep,
+            Step dormantBitmapStep) {
+        JobBuilder jobBuilder = jobBuilderFactory.get("inactiveUserJob")
+                // 실패한 뒤 같은 파라미터로 다시 실행하면, 완료된 파티션은 건너뛰고 실패한 파티션만 저장된 체크포인트부터 이어서 실행한다
+                .listener(inactiveJobListener);  // Job Listener 등록
+        // 곧 휴면으로 전환될 회원의 안내 파일을 먼저 만든다. 안내 파일에는 이메일이 들어가므로 내보낼 디렉터리를 직접 지정해야 한다
+        Notification notification = inactiveJobProperties.getNotification();
+        Assert.isTrue(!notification.isEnabled()
+                        || StringUtils.hasText(notification.getDirectory()),
+                "batch.inactive.notification.directory is required when notification is enabled");
+        JobFlowBuilder flowBuilder = notification.isEnabled()
+                ? jobBuilder.start(inactiveNoticeStep).next(decider)
+                : jobBuilder.start(decider);
+        // 대상 수를 먼저 세어 대상이 없으면 바로 끝내고, 적으면 한 스레드로, 많으면 대상 수에 맞춘 파티션으로 나눠 실행한다
+        // 비트맵을 켜면 어느 경우든 마지막에 휴면 회원 비트맵을 발행한다 (대상이 없어도 그동안 다시 활성화된 회원을 반영한다)
+        boolean bitmap = inactiveJobProperties.getBitmap().isEnabled();
+        Assert.isTrue(!bitmap || StringUtils.hasText(inactiveJobProperties.getBitmap().getPath()),
+                "batch.inactive.bitmap.path is required when bitmap is enabled");
+        TransitionBuilder<FlowJobBuilder> noop = flowBuilder
+                .on(InactiveJobExecutionDecider.NOOP.getName());
+        FlowBuilder<FlowJobBuilder> builder = bitmap ? noop.to(dormantBitmapStep) : noop.end();
+        builder = builder.from(decider)
+                .on(InactiveJobExecutionDecider.SINGLE.getName()).to(inactiveSingleStep);
+        if (bitmap) {
+            builder = builder.next(dormantBitmapStep);
+        }
+        builder = builder.from(decider)
+                .on(InactiveJobExecutionDecider.PARTITIONED.getName()).to(partitionerStep);
+        if (bitmap) {
+            builder = builder.next(dormantBitmapStep);
+        }
+        return builder.end().build();
+    }
+
+    /**
+     * 휴면 회원 idx 비트맵을 새 세대로 발행한다. 로그인, 알림 서비스는 DormantBitmapReader로 이 파일을 매핑해 member.status 조회 없이 휴면
+     * 여부를 확인한다.
+     */
+    @Bean
+    public Step dormantBitmapStep(StepBuilderFactory stepBuilderFactory) {
+        return stepBuilderFactory.get("dormantBitmapStep")
+                .tasklet(dormantBitmapTasklet(null))
                 .build();
     }
 
+    @Bean
+    @StepScope
+    public DormantBitmapTasklet dormantBitmapTasklet(
+            @Value("#{jobParameters[fullScan]}") String fullScan) {
+        Bitmap bitmap = inactiveJobProperties.getBitmap();
+        return new DormantBitmapTasklet(jdbcTemplate.getJdbcTemplate().getDataSource(),
+                bitmap.getFetchSize(), Path.of(bitmap.getPath()), bitmap.getOverlap(),
+                Boolean.parseBoolean(fullScan));
+    }
+
+    /**
+     * 휴면 전환 notice-lead 전이 된 회원에게 보낼 휴면 전환 예정 안내를 파일로 내보낸다.
+     * <p>
+     * 안내 구간은 이 Step이 마지막으로 성공한 실행의 nowDate부터 이번 nowDate까지다(InactiveScanWindowResolver.noticeSince). 재시작하면 같은
+     * 구간을 다시 계산하므로 저장된 위치가 그대로 맞다. 안내 시점과 전환 예정일은 회원마다 자신의 규칙(DormancyPolicy)의 기준으로 계산한다.
+     * <p>
+     * 커서 하나로 (status, updated_date) 인덱스 순서대로 읽고, RollingGzipFileItemWriter가 청크마다 gzip으로 압축해 파일 끝에 붙이므로
+     * 안내 수가 많아도 메모리는 청크 하나만큼만 사용한다. 같은 nowDate로 재시작하면 마지막으로 커밋한 위치부터 이어서 쓴다.
+     */
+    @Bean
+    public Step inactiveNoticeStep(StepBuilderFactory stepBuilderFactory) {
+        return stepBuilderFactory.get("inactiveNoticeStep")
+                .<DormancyNoticeProcessor.Candidate, DormancyNotice>chunk(
+                        inactiveJobProperties.getNotification().getChunkSize())
+                .reader(dormancyNoticeReader(null, null))
+                .processor(dormancyNoticeProcessor(null, null))
+                .writer(dormancyNoticeWriter(null, null))
+                .build();
+    }
+
+    @Bean(destroyMethod = "")
+    @StepScope
+    public JdbcCursorItemReader<DormancyNoticeProcessor.Candidate> dormancyNoticeReader(
+            @Value("#{jobParameters[nowDate]}") Date nowDate,
+            InactiveScanWindowResolver inactiveScanWindowResolver) {
+        Notification notification = inactiveJobProperties.getNotification();
+        // 안내 Step이 마지막으로 성공한 뒤로 어느 규칙으로든 안내 시점이 된 회원을 모두 읽는다
+        InactiveScanWindow window = DormancyNoticeProcessor.readWindow(dormancyPolicy(),
+                inactiveScanWindowResolver.noticeSince(nowDate), toLocalDateTime(nowDate),
+                notification.getNoticeLead());
+
+        return new JdbcCursorItemReaderBuilder<DormancyNoticeProcessor.Candidate>()
+                .name("dormancyNoticeReader")
+                .dataSource(jdbcTemplate.getJdbcTemplate().getDataSource())
+                // 인덱스 순서(updated_date, idx)로 읽어 정렬하지 않고, 재시작할 때 같은 순서로 건너뛴다
+                .sql(InactiveUserQueries.NOTICE_SQL)
+                .queryArguments(UserStatus.ACTIVE.name(),
+                        Timestamp.valueOf(window.updatedAfter()),
+                        Timestamp.valueOf(window.updatedBefore()))
+                .rowMapper((rs, rowNum) -> {
+                    String grade = rs.getString("grade");
+                    String socialType = rs.getString("social_type");
+                    return new DormancyNoticeProcessor.Candidate(rs.getLong("idx"),
+                            rs.getString("email"), grade == null ? null : Grade.valueOf(grade),
+                            socialType == null ? null : SocialType.valueOf(socialType),
+                            rs.getTimestamp("updated_date").toLocalDateTime());
+                })
+                .fetchSize(notification.getFetchSize())
+                .saveState(true)
+                .build();
+    }
+
+    /**
+     * 안내 구간은 nowDate와 이전 실행으로 계산하므로 Step마다 새로 생성한다.
+     */
+    @Bean
+    @StepScope
+    public DormancyNoticeProcessor dormancyNoticeProcessor(
+            @Value("#{jobParameters[nowDate]}") Date nowDate,
+            InactiveScanWindowResolver inactiveScanWindowResolver) {
+        return new DormancyNoticeProcessor(dormancyPolicy(),
+                inactiveScanWindowResolver.noticeSince(nowDate), toLocalDateTime(nowDate),
+                inactiveJobProperties.getNotification().getNoticeLead());
+    }
+
+    @Bean(destroyMethod = "")
+    @StepScope
+    public RollingGzipFileItemWriter<DormancyNotice> dormancyNoticeWriter(
+            @Value("#{jobParameters[nowDate]}") Date nowDate,
+            @Value("#{stepExecution.jobExecution.jobId}") Long jobInstanceId) {
+        Notification notification = inactiveJobProperties.getNotification();
+        RollingGzipFileItemWriter<DormancyNotice> writer = new RollingGzipFileItemWriter<>();
+        writer.setDirectory(Path.of(notification.getDirectory()));
+        // 파일 이름에 JobInstance id를 넣어, 같은 날 다른 nowDate로 실행한 Job이 이전 Job의 파일을 덮어쓰지 않는다
+        // 재시작은 같은 JobInstance이므로 같은 파일에 이어서 쓴다
+        writer.setFilePrefix("dormancy-notice-"
+                + toLocalDateTime(nowDate).format(DateTimeFormatter.BASIC_ISO_DATE)
+                + "-" + jobInstanceId);
+        writer.setLineAggregator(DormancyNotice::toJson);
+        writer.setMaxFileBytes(notification.getMaxFileSize().toBytes());
+        return writer;
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
     @Bean
     @JobScope  // Job 실행시마다 빈을 새로 생성한다.
-    public Step partitionerStep(StepBuilderFactory stepBuilderFactory, Step inactiveJobStep) {
-        return stepBuilderFactory
+    public Step partitionerStep(StepBuilderFactory stepBuilderFactory, Step inactiveJobStep,
+            Step inactivePipelinedJobStep, Step inactiveIdBufferJobStep, JobExplorer jobExplorer,
+            InactiveScanWindowResolver inactiveScanWindowResolver,
+            @Value("#{jobParameters[nowDate]}") Date nowDate,
+            @Value("#{jobParameters[fullScan]}") String fullScan,
+            // InactiveJobExecutionDecider가 대상 수로 정한 파티션 수
+            @Value("#{jobExecutionContext[gridSize] ?: 5}") int gridSize,
+            @Qualifier("partitionTaskExecutor") TaskExecutor partitionTaskExecutor) {
+        Step workerStep = workerStep(inactiveJobStep, inactivePipelinedJobStep,
+                inactiveIdBufferJobStep);
+        InactiveScanWindow window = inactiveScanWindowResolver.resolve(nowDate,
+                Boolean.parseBoolean(fullScan));
+        PartitionStepBuilder partitionStepBuilder = stepBuilderFactory
                 .get("partitionerStep")
-                // Partitioning을 사용하는 partitioner 프로퍼티에 Step 이름과  inactiveUserPartitioner 객체를 생성해 등록
-                .partitioner("partitionerStep", new InactiveUserPartitioner())
-                // Grade Enum 값이 3이므로 3 이상으로 지정하면 된다
-                .gridSize(5)
-                .step(inactiveJobStep)
-                .taskExecutor(taskExecutor())
+                // Partitioning을 사용하는 partitioner 프로퍼티에 Step 이름과 inactiveUserRangePartitioner 객체를 생성해 등록
+                // 등급별로 나누면 대상 회원이 몰린 등급 하나가 전체 시간을 좌우하므로, idx 범위를 대상 회원 수가 같도록 나눈다
+                // 증분 모드면 마지막으로 성공한 실행 이후에 휴면 대상이 된 회원만 나눈다
+                .partitioner("partitionerStep",
+                        new InactiveUserRangePartitioner(jdbcTemplate, window,
+                                inactiveJobProperties.getIdBuffer()));
+
+        if (inactiveJobProperties.getPartitionMode() == PartitionMode.REMOTE) {
+            // 파티션을 batch_partition_request 테이블에 넣고 다른 JVM의 Worker(inactivePartitionWorker)가 실행하기를 기다린다
+            Remote remote = inactiveJobProperties.getRemote();
+            return partitionStepBuilder
+                    .partitionHandler(new DatabasePartitionHandler(partitionRequestRepository(),
+                            jobExplorer, gridSize, remote.getPollInterval(), remote.getTimeout()))
+                    .build();
+        }
+
+        return partitionStepBuilder
+                // 대상 회원 수가 비슷한 idx 구간 gridSize개로 나눈다
+                .gridSize(gridSize)
+                .step(workerStep)
+                // 커넥션 풀 크기에 맞춘 수만큼만 파티션을 동시에 실행한다
+                .taskExecutor(partitionTaskExecutor)
                 .build();
     }
 
     @Bean
-    public Flow multiFlow(Step inactiveJobStep) {
+    public PartitionRequestRepository partitionRequestRepository() {
+        return new PartitionRequestRepository(jdbcTemplate);
+    }
+
+    /**
+     * batch.inactive.remote.worker-enabled가 true면 이 프로세스가 다른 JVM의 Manager가 넣은 파티션을 가져와 실행한다.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "batch.inactive.remote", name = "worker-enabled",
+            havingValue = "true")
+    public InactivePartitionWorker inactivePartitionWorker(JobExplorer jobExplorer,
+            JobRepository jobRepository, Step inactiveJobStep, Step inactivePipelinedJobStep,
+            Step inactiveIdBufferJobStep) {
+        Remote remote = inactiveJobProperties.getRemote();
+        Step workerStep = workerStep(inactiveJobStep, inactivePipelinedJobStep,
+                inactiveIdBufferJobStep);
+        return new InactivePartitionWorker(partitionRequestRepository(), jobExplorer,
+                jobRepository, workerStep, remote.getWorkerId(), remote.getLeaseTimeout(),
+                remote.getPollInterval());
+    }
+
+    /**
+     * batch.inactive.step-mode에 맞는, 파티션 하나를 처리하는 Step
+     */
+    private Step workerStep(Step inactiveJobStep, Step inactivePipelinedJobStep,
+            Step inactiveIdBufferJobStep) {
+        return switch (inactiveJobProperties.getStepMode()) {
+            case CHUNK -> inactiveJobStep;
+            case PIPELINED -> inactivePipelinedJobStep;
+            case ID_BUFFER -> inactiveIdBufferJobStep;
+        };
+    }
+
+    @Bean
+    public Flow multiFlow(Step inactiveJobStep, InactiveJobExecutionDecider decider,
+            @Qualifier("partitionTaskExecutor") TaskExecutor partitionTaskExecutor) {
         Flow[] flows = new Flow[5];
         // Flow 5개 생성
         IntStream.range(0, flows.length).forEach(i ->
                 flows[i] = new FlowBuilder<Flow>("MultiFlow" + i)
-                        .from(inactiveJobFlow(inactiveJobStep))  // Flow(inactiveJobFlow) 5개 생성
+                        .from(inactiveJobFlow(inactiveJobStep, decider))  // Flow(inactiveJobFlow) 5개 생성
                         .end());
 
         FlowBuilder<Flow> flowBuilder = new FlowBuilder<>("MultiFlowTest");
         return flowBuilder
-                .split(taskExecutor())  // TaskExecutor 등록
+                .split(partitionTaskExecutor)  // TaskExecutor 등록 (각 Flow의 Step은 청크용 taskExecutor를 사용한다)
                 .add(flows)  // flows 5개가 들어 있는 배열 등록
                 .build();
     }
 
     //    @Bean
-    public Flow inactiveJobFlow(Step inactiveJobStep) {
+    public Flow inactiveJobFlow(Step inactiveJobStep, InactiveJobExecutionDecider decider) {
         FlowBuilder<Flow> flowBuilder = new FlowBuilder<>("inactiveJobFlow");
         return flowBuilder
-                .start(new InactiveJobExecutionDecider())
-                .on(FlowExecutionStatus.FAILED.getName()).end()
-                .on(FlowExecutionStatus.COMPLETED.getName()).to(inactiveJobStep)
+                .start(decider)
+                .on(InactiveJobExecutionDecider.NOOP.getName()).end()
+                .from(decider)
+                .on("*").to(inactiveJobStep)
                 .end();
     }
 
+    /**
+     * 대상이 적을 때 사용하는 Step. 파티션과 스레드를 만들지 않고 한 스레드가 keyset 방식으로 차례로 읽는다.
+     */
+    @Bean
+    public Step inactiveSingleStep(StepBuilderFactory stepBuilderFactory,
+            InactiveStepListener inactiveStepListener) {
+        return singleThreadStep(stepBuilderFactory, "inactiveUserSingleStep",
+                inactiveUserRowReader(null, null, null, null), inactiveStepListener);
+    }
+
+    /**
+     * 한 스레드가 청크를 차례로 읽고, 처리하고, 쓰는 Step. inactiveSingleStep, inactivePipelinedJobStep, inactiveIdBufferJobStep은
+     * 이름과 Reader만 다르다.
+     */
+    private Step singleThreadStep(StepBuilderFactory stepBuilderFactory, String name,
+            ItemReader<InactiveUserRow> reader, InactiveStepListener inactiveStepListener) {
+        SimpleStepBuilder<InactiveUserRow, InactiveUserRow> stepBuilder = stepBuilderFactory
+                .get(name)
+                .<InactiveUserRow, InactiveUserRow>chunk(inactiveChunkSizePolicy())
+                .reader(reader)
+                .processor(inactiveUserPolicyProcessor(null, null))
+                .writer(inactiveUserStepWriter());
+        stepBuilder = faultTolerant(stepBuilder)
+                .listener(inactiveStepListener);
+        stepBuilder.listener((ChunkListener) inactiveChunkSizePolicy());
+        return stepBuilder.build();
+    }
+
     @Bean
     public Step inactiveJobStep(StepBuilderFactory stepBuilderFactory,
-            InactiveStepListener inactiveStepListener, TaskExecutor taskExecutor) {
-        // Input & Output 타입을 User로 설정하고, 쓰기 시에 청크 단위로 묶어서 writer() 메서드를 실행시킬 단위인 chunk 설정
-        // 즉, 커밋의 단위가 10개
-        return stepBuilderFactory.get("inactiveUserStep")
-                .<User, User>chunk(CHUNK_SIZE)
-                .reader(inactiveUserJpaReader())
-                .processor(inactiveUserProcessor())
-                .writer(inactiveUserWriter())
+            InactiveStepListener inactiveStepListener,
+            @Qualifier("taskExecutor") TaskExecutor taskExecutor,
+            InactiveJobConcurrency inactiveJobConcurrency) {
+        // Input & Output 타입을 InactiveUserRow로 설정하고, 쓰기 시에 청크 단위로 묶어서 writer() 메서드를 실행시킬 단위인 chunk 설정
+        // User 엔티티 대신 idx와 status만 읽으므로 영속성 컨텍스트가 행마다 스냅샷을 만들지 않는다
+        SimpleStepBuilder<InactiveUserRow, InactiveUserRow> stepBuilder = stepBuilderFactory
+                .get("inactiveUserStep")
+                .<InactiveUserRow, InactiveUserRow>chunk(inactiveChunkSizePolicy())
+                // 스레드마다 겹치지 않는 idx 구간을 가져가 읽으므로 Reader에서 스레드끼리 기다리지 않는다
+                .reader(inactiveUserClaimingReader(null, null, null, null))
+                // 가장 짧은 기준으로 읽은 회원을 회원마다 맞는 규칙의 기준으로 다시 판단한다
+                .processor(inactiveUserPolicyProcessor(null, null))
+                .writer(inactiveUserStepWriter());
+
+        return faultTolerant(stepBuilder)
                 .taskExecutor(taskExecutor)
                 .listener(inactiveStepListener)
+                .listener(inactiveChunkSizePolicy())
                 // 제한 횟수만큼만 스레드를 동시에 실행시킨다 (시스템에 할당된 스레드 풀의 크기보다 작은 값으로 설정해야 한다. 1로 설정하면 기존 동기화 방식과 같다. 2로 설정하면 스레드는 2개씩 실행시킨다.)
-                .throttleLimit(2)
+                // 파티션 수 * throttleLimit이 커넥션 풀을 넘지 않도록 InactiveJobExecutorConfig에서 계산한 값을 사용한다
+                .throttleLimit(inactiveJobConcurrency.throttleLimit())
                 .build();
     }
 
+    /**
+     * inactiveJobStep은 스레드마다 읽기, 처리, 쓰기를 차례로 실행하므로 한 스레드가 쓰는 동안 그 스레드의 다음 페이지는 읽히지 않는다.
+     * <p>
+     * 이 Step은 읽기와 쓰기를 겹쳐 실행한다. Reader의 미리 읽기 Task가 prefetchTaskExecutor에서 다음 페이지들을 크기가 정해진 큐에 채우고, Step
+     * 스레드는 큐에서 꺼낸 청크를 처리해 청크 트랜잭션 안에서 쓴다. 큐가 가득 차면 읽기를 멈추고, 커밋 단위는 inactiveJobStep과 같은 청크다.
+     * <p>
+     * 처리는 회원마다 메모리에서 규칙 하나를 비교하는 일이라 Step 스레드에서 바로 실행한다. AsyncItemProcessor로 회원마다 Task를 넘기면 넘기는 비용이
+     * 처리보다 크고, 청크 크기만큼의 Task가 한꺼번에 taskExecutor의 큐를 넘어 TaskRejectedException이 난다.
+     * <p>
+     * 미리 읽기는 step-mode가 pipelined일 때 keysetReader()가 Reader에 설정하므로, Step 자체는 inactiveSingleStep과 이름만 다르다.
+     */
     @Bean
-    @StepScope
-    public ListItemReader<User> inactiveUserReader(
-            // SpEL을 사용해 등급값을 불러온다
-            @Value("#{stepExecutionContext[grade]}") String grade, UserRepository userRepository) {
-        log.info(Thread.currentThread().getName());
-
-        // 기본 빈 생성은 싱글턴이지만, @StepScope를 사용하면 해당 메서드는 Step의 주기에 따라 새로운 빈을 생성한다.
-        // 각 Step의 실행마다 새로 빈을 만들기 때문에 지연 생성이 가능하다.
-        // 주의할 점은, @StepScope는 기본 프록시 모드가 반환되는 클래스 타입을 참조하기 때문에 @StepScope를 사용하면 반드시 구현된 반환 타입을 명시해 사용해야 한다.
-        // 여기서는 QueueItemReader<User>라고 명시했다.
-        List<User> inactiveUsers = userRepository.findByUpdatedDateBeforeAndStatusEqualsAndGradeEquals(
-                LocalDateTime.now().minusYears(1),
-                UserStatus.ACTIVE,
-                Grade.valueOf(grade)); // 해당 등급의 휴면회원만 불러오도록 한다
+    public Step inactivePipelinedJobStep(StepBuilderFactory stepBuilderFactory,
+            InactiveStepListener inactiveStepListener) {
+        return singleThreadStep(stepBuilderFactory, "inactiveUserPipelinedStep",
+                inactiveUserRowReader(null, null, null, null), inactiveStepListener);
+    }
 
-        // ListItemReader은 DB에서 한꺼번에 읽어서 메모리에 올리므로 수십 만개 이상의 데이터에서 문제 발생 소지가 있다.
-        return new ListItemReader<>(inactiveUsers);
+    /**
+     * 파티션의 대상 idx를 먼저 모두 읽어 두고, 청크마다 where idx in (...) 한 번으로 그 청크의 행만 읽는 Step.
+     * <p>
+     * 키셋 Reader는 페이지마다 (status, updated_date, idx) 인덱스에서 마지막 idx 다음을 다시 찾지만, 이 Step은 인덱스를 한 번만 훑고 이후에는 기본 키로만
+     * 읽는다. 키는 대상 한 명에 8바이트라 파티션이 커도 힙을 거의 쓰지 않는다.
+     */
+    @Bean
+    public Step inactiveIdBufferJobStep(StepBuilderFactory stepBuilderFactory,
+            InactiveStepListener inactiveStepListener) {
+        return singleThreadStep(stepBuilderFactory, "inactiveUserIdBufferStep",
+                inactiveUserIdBufferReader(null, null, null, null), inactiveStepListener);
     }
 
     /**
-     * CHUNK_SIZE에 대해서 주의사항이 있다.
+     * 청크 크기(batch.inactive.chunk-size)에 대해서 주의사항이 있다.
      * <p>
      * JpaPagingItemReader는 내부에 entityManager를 할당받아 사용하는데, 지정한 크기로 데이터를 읽어온다. 만약 inactiveJobStep()
      * 에서 설정한 청크 단위("커밋 단위")가 5라고 가정하면, Item 5개를 writer까지 배치 처리를 진행하고 저장한다고 가정해보자. "저장한 데이터를 바탕으로"
@@ -156,25 +450,238 @@ public class InactiveUserJobConfig {
         };
 
         // JPQL 생성
-        String jpqlQuery = "select u" +
-                " from User as u" +
-                " where u.updatedDate < :updatedDate and u.status = :status";
+        String jpqlQuery = "select u" + InactiveUserQueries.JPQL_CANDIDATES;
         jpaPagingItemReader.setQueryString(jpqlQuery);
 
         // JPQL 파라미터 설정
         Map<String, Object> map = new HashMap<>();
-        LocalDateTime now = LocalDateTime.now();
-        map.put("updatedDate", now.minusYears(1));
+        map.put("updatedBefore", dormancyPolicy().scanCutoff(LocalDateTime.now()));
         map.put("status", UserStatus.ACTIVE);
         jpaPagingItemReader.setParameterValues(map);
 
-        // 트랜잭션을 관리해줄 EntityManagerFactory 설정 및 Pagination을 CHUNK_SIZE로 설정
+        // 트랜잭션을 관리해줄 EntityManagerFactory 설정 및 Pagination을 청크 크기로 설정
         jpaPagingItemReader.setEntityManagerFactory(entityManagerFactory);
-        jpaPagingItemReader.setPageSize(CHUNK_SIZE);
+        jpaPagingItemReader.setPageSize(inactiveJobProperties.getChunkSize());
 
         return jpaPagingItemReader;
     }
 
+    /**
+     * 커밋 시간에 맞춰 청크 크기를 조절한다. 조절을 끄면 batch.inactive.chunk-size로 고정된다.
+     * <p>
+     * 모든 파티션이 같은 DB를 사용하므로 하나의 정책을 공유해 함께 늘리고 줄인다.
+     */
+    @Bean
+    public AdaptiveChunkSizePolicy inactiveChunkSizePolicy() {
+        AdaptiveChunk adaptiveChunk = inactiveJobProperties.getAdaptiveChunk();
+        int chunkSize = inactiveJobProperties.getChunkSize();
+        if (!adaptiveChunk.isEnabled()) {
+            return new AdaptiveChunkSizePolicy(chunkSize, chunkSize, chunkSize,
+                    adaptiveChunk.getTargetLatency());
+        }
+        return new AdaptiveChunkSizePolicy(chunkSize, adaptiveChunk.getMinSize(),
+                adaptiveChunk.getMaxSize(), adaptiveChunk.getTargetLatency(),
+                jdbcTemplate.getJdbcTemplate(), adaptiveChunk.getLagQuery(),
+                adaptiveChunk.getMaxLag(), adaptiveChunk.getLagCheckInterval());
+    }
+
+    /**
+     * inactiveUserJpaReader()처럼 getPage()를 0으로 고정하면 매 청크마다 offset 0부터 전체 테이블을 다시 조회한다.
+     * <p>
+     * 키셋 방식은 마지막으로 읽은 idx 다음부터 idx 순서로 읽으므로(where idx > :lastIdx order by idx) 처리한 행이 조회 조건에서 빠져도 건너뛰는 페이지가
+     * 없고, 테이블이 커져도 페이지마다 조회 비용이 일정하다.
+     */
+    @Bean(destroyMethod = "")
+    @StepScope
+    public JpaKeysetPagingItemReader<User> inactiveUserKeysetReader(
+            // InactiveUserRangePartitioner가 나눈 idx 구간. 파티셔닝 없이 실행되면 null이다.
+            @Value("#{stepExecutionContext[minIdx]}") Long minIdx,
+            @Value("#{stepExecutionContext[maxIdx]}") Long maxIdx,
+            // 파티셔닝 없이 실행되면 InactiveJobExecutionDecider가 Job에 남긴 구간을 읽고, 그것도 없으면 가장 짧은 휴면 기준이 지난 회원 전체를 읽는다
+            @Value("#{stepExecutionContext[updatedAfter] ?: jobExecutionContext[updatedAfter]}") String updatedAfter,
+            @Value("#{stepExecutionContext[updatedBefore] ?: jobExecutionContext[updatedBefore]}") String updatedBefore) {
+        return keysetReader("select u", User::getIdx, minIdx, maxIdx, updatedAfter,
+                updatedBefore);
+    }
+
+    /**
+     * inactiveUserKeysetReader와 같은 조건과 순서로 읽지만, User 엔티티 대신 휴면 전환에 필요한 idx, status, updated_date(휴면 규칙이 있으면
+     * 등급과 소셜 타입도)만 InactiveUserRow로 읽는다.
+     * <p>
+     * 생성자 표현식으로 읽은 레코드는 영속성 컨텍스트가 관리하지 않으므로 Hibernate가 행마다 엔티티와 스냅샷을 만들지 않고, 비밀번호 해시 같은 쓰지 않는
+     * 컬럼도 읽지 않는다. 휴면 전환 Step은 모두 이 Reader를 사용한다.
+     */
+    @Bean(destroyMethod = "")
+    @StepScope
+    public JpaKeysetPagingItemReader<InactiveUserRow> inactiveUserRowReader(
+            @Value("#{stepExecutionContext[minIdx]}") Long minIdx,
+            @Value("#{stepExecutionContext[maxIdx]}") Long maxIdx,
+            @Value("#{stepExecutionContext[updatedAfter] ?: jobExecutionContext[updatedAfter]}") String updatedAfter,
+            @Value("#{stepExecutionContext[updatedBefore] ?: jobExecutionContext[updatedBefore]}") String updatedBefore) {
+        // 규칙이 없으면 등급과 소셜 타입을 읽지 않으므로 (status, updated_date, idx) 인덱스만 읽는다
+        String properties = dormancyPolicy().hasRules()
+                ? InactiveUserQueries.ROW_PROPERTIES
+                : InactiveUserQueries.INDEX_ROW_PROPERTIES;
+        return keysetReader("select new " + InactiveUserRow.class.getName()
+                        + "(" + properties + ")", InactiveUserRow::idx, minIdx, maxIdx,
+                updatedAfter, updatedBefore);
+    }
+
+    /**
+     * inactiveUserStep의 스레드들이 함께 사용하는 Reader. inactiveUserRowReader와 같은 조건으로 읽지만, 스레드마다 claim-width 너비의 idx
+     * 구간을 AtomicLong으로 가져가 그 구간만 JDBC로 조회하므로 같은 행을 두 스레드가 읽지 않고, 한 스레드가 조회하는 동안 다른 스레드가 기다리지 않는다.
+     */
+    @Bean(destroyMethod = "")
+    @StepScope
+    public IdRangeClaimingItemReader<InactiveUserRow> inactiveUserClaimingReader(
+            @Value("#{stepExecutionContext[minIdx]}") Long minIdx,
+            @Value("#{stepExecutionContext[maxIdx]}") Long maxIdx,
+            @Value("#{stepExecutionContext[updatedAfter] ?: jobExecutionContext[updatedAfter]}") String updatedAfter,
+            @Value("#{stepExecutionContext[updatedBefore] ?: jobExecutionContext[updatedBefore]}") String updatedBefore) {
+        String candidates = InactiveUserQueries.CANDIDATES +
+                (updatedAfter != null ? InactiveUserQueries.WINDOW_CONDITION : "");
+
+        IdRangeClaimingItemReader<InactiveUserRow> reader = new IdRangeClaimingItemReader<>();
+        reader.setDataSource(jdbcTemplate.getJdbcTemplate().getDataSource());
+        // 규칙이 없으면 등급과 소셜 타입을 읽지 않으므로 (status, updated_date, idx) 인덱스만 읽는다
+        String columns = dormancyPolicy().hasRules()
+                ? InactiveUserQueries.ROW_COLUMNS
+                : InactiveUserQueries.INDEX_ROW_COLUMNS;
+        reader.setQueryString("select " + columns + candidates +
+                InactiveUserQueries.CLAIMED_RANGE + InactiveUserQueries.ORDER_BY_IDX);
+        // 파티셔닝 없이 실행되면 대상의 idx 범위를 open()에서 구한다
+        reader.setBoundsQuery(InactiveUserQueries.IDX_BOUNDS + candidates);
+        reader.setKeyRange(minIdx, maxIdx);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("status", UserStatus.ACTIVE.name());
+        map.put("updatedBefore", updatedBefore != null ? LocalDateTime.parse(updatedBefore)
+                : dormancyPolicy().scanCutoff(LocalDateTime.now()));
+        if (updatedAfter != null) {
+            map.put("updatedAfter", LocalDateTime.parse(updatedAfter));
+        }
+        reader.setParameterValues(map);
+        reader.setRowMapper((rs, rowNum) -> {
+            String grade = rs.getString("grade");
+            String socialType = rs.getString("social_type");
+            return new InactiveUserRow(rs.getLong("idx"),
+                    UserStatus.valueOf(rs.getString("status")),
+                    grade == null ? null : Grade.valueOf(grade),
+                    socialType == null ? null : SocialType.valueOf(socialType),
+                    rs.getTimestamp("updated_date").toLocalDateTime());
+        });
+        reader.setClaimWidth(inactiveJobProperties.getClaimWidth());
+        reader.setSaveState(true);
+        return reader;
+    }
+
+    /**
+     * 예전에는 등급별 대상을 ListItemReader로 읽어 등급 전체의 User 엔티티를 한꺼번에 메모리에 올렸기 때문에 대상이 수십 만 명을 넘으면
+     * OutOfMemoryError가 났다. 이 Reader는 파티션 대상의 idx만 먼저 long 배열(많으면 메모리 매핑 파일)에 담고, 청크마다 where idx in (...) 한
+     * 번으로 InactiveUserRow를 읽으므로 대상 한 명에 8바이트만 사용한다.
+     */
+    @Bean(destroyMethod = "")
+    @StepScope
+    public IdBufferItemReader<InactiveUserRow> inactiveUserIdBufferReader(
+            @Value("#{stepExecutionContext[minIdx]}") Long minIdx,
+            @Value("#{stepExecutionContext[maxIdx]}") Long maxIdx,
+            @Value("#{stepExecutionContext[updatedAfter] ?: jobExecutionContext[updatedAfter]}") String updatedAfter,
+            @Value("#{stepExecutionContext[updatedBefore] ?: jobExecutionContext[updatedBefore]}") String updatedBefore) {
+        IdBufferItemReader<InactiveUserRow> reader = new IdBufferItemReader<>();
+        reader.setDataSource(jdbcTemplate.getJdbcTemplate().getDataSource());
+        reader.setEntityManagerFactory(entityManagerFactory);
+
+        // 1단계 - 파티션 구간의 대상 idx만 인덱스 순서로 읽는다 (Reader가 정렬한다)
+        reader.setKeyQuery(InactiveUserQueries.keyQuery(updatedAfter != null, maxIdx != null));
+        Map<String, Object> map = new HashMap<>();
+        map.put("status", UserStatus.ACTIVE.name());
+        map.put("updatedBefore", updatedBefore != null ? LocalDateTime.parse(updatedBefore)
+                : dormancyPolicy().scanCutoff(LocalDateTime.now()));
+        if (updatedAfter != null) {
+            map.put("updatedAfter", LocalDateTime.parse(updatedAfter));
+        }
+        if (maxIdx != null) {
+            map.put("minIdx", minIdx);
+            map.put("maxIdx", maxIdx);
+        }
+        reader.setParameterValues(map);
+
+        // 2단계 - 청크 크기만큼의 idx로 InactiveUserRow를 읽는다
+        String properties = dormancyPolicy().hasRules()
+                ? InactiveUserQueries.ROW_PROPERTIES
+                : InactiveUserQueries.INDEX_ROW_PROPERTIES;
+        reader.setHydrateQuery("select new " + InactiveUserRow.class.getName()
+                + "(" + properties + ")" + InactiveUserQueries.JPQL_KEYS
+                + InactiveUserQueries.JPQL_ORDER_BY_IDX, InactiveUserRow.class);
+        reader.setKeyExtractor(InactiveUserRow::idx);
+        reader.setPageSize(inactiveChunkSizePolicy()::getChunkSize);
+        IdBuffer idBuffer = inactiveJobProperties.getIdBuffer();
+        reader.setFetchSize(idBuffer.getFetchSize());
+        reader.setSpillThreshold(idBuffer.getSpillThreshold());
+        reader.setSpillDirectory(Path.of(idBuffer.getSpillDirectory()));
+        reader.setSaveState(true);
+        return reader;
+    }
+
+    private <T> JpaKeysetPagingItemReader<T> keysetReader(String selectClause,
+            Function<? super T, Long> keyExtractor, Long minIdx, Long maxIdx, String updatedAfter,
+            String updatedBefore) {
+        JpaKeysetPagingItemReader<T> keysetReader = new JpaKeysetPagingItemReader<>();
+
+        // JPQL 생성 - 마지막으로 읽은 idx 다음부터 idx 순서로 읽는다
+        String jpqlQuery = InactiveUserQueries.keysetQuery(selectClause, updatedAfter != null,
+                maxIdx != null);
+        keysetReader.setQueryString(jpqlQuery);
+
+        // JPQL 파라미터 설정
+        Map<String, Object> map = new HashMap<>();
+        map.put("updatedBefore", updatedBefore != null ? LocalDateTime.parse(updatedBefore)
+                : dormancyPolicy().scanCutoff(LocalDateTime.now()));
+        map.put("status", UserStatus.ACTIVE);
+        if (updatedAfter != null) {
+            map.put("updatedAfter", LocalDateTime.parse(updatedAfter));
+        }
+        if (maxIdx != null) {
+            map.put("maxIdx", maxIdx);
+        }
+        keysetReader.setParameterValues(map);
+        if (minIdx != null) {
+            keysetReader.setStartAfterKey(minIdx - 1);
+        }
+
+        keysetReader.setEntityManagerFactory(entityManagerFactory);
+        keysetReader.setKeyExtractor(keyExtractor);
+        // 청크 크기가 바뀌면 다음 페이지부터 같은 크기로 읽는다
+        keysetReader.setPageSize(inactiveChunkSizePolicy()::getChunkSize);
+        // 멀티 스레드로 실행되어도 모든 스레드의 청크가 커밋된 위치까지만 저장하므로, 재시작하면 그 다음부터 읽는다
+        keysetReader.setSaveState(true);
+        if (inactiveJobProperties.getStepMode() == StepMode.PIPELINED) {
+            keysetReader.setPrefetchPages(inactiveJobProperties.getPipeline().getPrefetchPages());
+            keysetReader.setPrefetchExecutor(prefetchTaskExecutor);
+        }
+
+        return keysetReader;
+    }
+
+    /**
+     * batch.inactive.policy의 규칙을 (등급, 소셜 타입)별 규칙 번호로 미리 계산해 둔다.
+     */
+    @Bean
+    public DormancyPolicy dormancyPolicy() {
+        return DormancyPolicy.compile(inactiveJobProperties.getPolicy());
+    }
+
+    /**
+     * 규칙별 기준 시각은 nowDate로 계산하므로 Step마다 새로 생성한다.
+     */
+    @Bean
+    @StepScope
+    public InactiveUserPolicyProcessor inactiveUserPolicyProcessor(
+            @Value("#{jobParameters[nowDate]}") Date nowDate, MeterRegistry meterRegistry) {
+        return new InactiveUserPolicyProcessor(dormancyPolicy(), toLocalDateTime(nowDate),
+                meterRegistry);
+    }
+
     public ItemProcessor<User, User> inactiveUserProcessor() {
         // Simpler Way from Java 8 with "Method Reference"
         // return User::setInactive;
@@ -191,15 +698,73 @@ public class InactiveUserJobConfig {
 //        return ((List<? extends User> users) -> userRepository.saveAll(users));
 //    }
 
-    private JpaItemWriter<User> inactiveUserWriter() {
-        JpaItemWriter<User> jpaItemWriter = new JpaItemWriter<>();
-        jpaItemWriter.setEntityManagerFactory(entityManagerFactory);
-        return jpaItemWriter;
+    /**
+     * inactiveUserStepWriter()가 inactiveUserSplitWriter를 반환하는 Step은 모두 이 설정으로 데드락과 잠금 대기 실패를 다시 실행한다.
+     */
+    private SimpleStepBuilder<InactiveUserRow, InactiveUserRow> faultTolerant(
+            SimpleStepBuilder<InactiveUserRow, InactiveUserRow> stepBuilder) {
+        FaultTolerance faultTolerance = inactiveJobProperties.getFaultTolerance();
+        if (!faultTolerance.isEnabled()) {
+            return stepBuilder;
+        }
+        // 실패한 회원은 inactiveUserSplitWriter가 골라내므로 skip()을 쓰지 않는다 (skip을 쓰면 청크를 아이템 하나씩 다시 실행한다)
+        // 데드락은 DB가 트랜잭션 전체를 롤백하므로, 여러 스레드가 같은 간격으로 다시 부딪히지 않도록 지터를 준 지수 백오프로 청크를 다시 실행한다
+        ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
+        backOffPolicy.setInitialInterval(faultTolerance.getInitialBackoff().toMillis());
+        backOffPolicy.setMaxInterval(faultTolerance.getMaxBackoff().toMillis());
+        return stepBuilder.faultTolerant()
+                .retry(DeadlockLoserDataAccessException.class)
+                .retry(CannotAcquireLockException.class)
+                .retryLimit(faultTolerance.getRetryLimit())
+                .backOffPolicy(backOffPolicy);
+    }
+
+    private ItemWriter<InactiveUserRow> inactiveUserStepWriter() {
+        if (inactiveJobProperties.getFaultTolerance().isEnabled()) {
+            return inactiveUserSplitWriter();
+        }
+        return inactiveUserItemWriter();
+    }
+
+    /**
+     * 쓰기에 실패한 청크를 반씩 나눠 실패한 회원만 batch_inactive_skip에 남기고 건너뛴다.
+     * <p>
+     * savepoint로 청크의 일부만 되돌리므로, 실패해도 영속성 컨텍스트가 롤백 전용이 되는 JPA writer와는 함께 사용할 수 없다.
+     */
+    @Bean
+    @StepScope
+    public BinarySplitItemWriter<InactiveUserRow> inactiveUserSplitWriter() {
+        Assert.state(inactiveJobProperties.getWriter() == WriterType.JDBC,
+                "batch.inactive.fault-tolerance requires batch.inactive.writer=jdbc");
+        return new BinarySplitItemWriter<>(inactiveUserItemWriter(), InactiveUserRow::idx,
+                jdbcTemplate);
+    }
+
+    private ItemWriter<InactiveUserRow> inactiveUserItemWriter() {
+        ItemWriter<InactiveUserRow> writer = inactiveJobProperties.getWriter() == WriterType.JPA
+                ? inactiveUserWriter() : inactiveUserJdbcWriter();
+        if (inactiveJobProperties.getArchive().isEnabled()) {
+            // 상태를 바꾼 청크의 개인정보를 같은 트랜잭션에서 member_dormant로 옮긴다
+            return new InactiveUserArchiveItemWriter<>(writer, InactiveUserRow::idx, jdbcTemplate);
+        }
+        return writer;
     }
 
+    /**
+     * 청크당 update 문 하나로 상태만 휴면으로 변경한다.
+     * <p>
+     * 실제로 변경된 행 수를 Step 종료 시점에 writeCount로 반영해야 하므로 Step마다 새로 생성한다.
+     */
     @Bean
-    public TaskExecutor taskExecutor() {
-        // Task에 할당되는 이름 설정 - 첫 번째 Task는 Batck_Task1
-        return new SimpleAsyncTaskExecutor("Batch_Task");
+    @StepScope
+    public InactiveUserJdbcItemWriter<InactiveUserRow> inactiveUserJdbcWriter() {
+        return new InactiveUserJdbcItemWriter<>(jdbcTemplate, InactiveUserRow::idx);
+    }
+
+    /**
+     * Reader가 엔티티를 읽지 않으므로 JpaItemWriter(merge) 대신 JPQL 벌크 update로 상태를 바꾼다.
+     */
+    private InactiveUserJpqlItemWriter<InactiveUserRow> inactiveUserWriter() {
+        return new InactiveUserJpqlItemWriter<>(entityManagerFactory, InactiveUserRow::idx);
     }
 }
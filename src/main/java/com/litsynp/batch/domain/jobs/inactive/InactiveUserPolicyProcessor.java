@@ -0,0 +1,74 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * 가장 짧은 휴면 기준으로 스캔한 회원을 자신에게 맞는 규칙(DormancyPolicy)의 기준으로 다시 판단한다.
+ * <p>
+ * 규칙의 기준 시각은 Step을 시작할 때 규칙 번호별 배열로 계산해 두므로, 회원 한 명에 규칙 조회와 시각 비교 한 번만 한다. 규칙의 기준이 아직 지나지
+ * 않은 회원은 null을 반환해 건너뛴다(filterCount). 규칙별 전환 수는 멀티 스레드 Step에서 함께 세도록 LongAdder로 세고, Step이 끝나면
+ * ExecutionContext(policy.규칙.matched)와 inactive.policy.matched 메트릭에 남긴다. 재시도한 청크의 회원은 다시 센다.
+ */
+@Slf4j
+public class InactiveUserPolicyProcessor implements ItemProcessor<InactiveUserRow, InactiveUserRow>,
+        StepExecutionListener {
+
+    public static final String POLICY_MATCHED = "inactive.policy.matched";
+
+    private final DormancyPolicy dormancyPolicy;
+    private final LocalDateTime[] cutoffs;
+    private final LongAdder[] matched;
+    private final MeterRegistry meterRegistry;
+
+    public InactiveUserPolicyProcessor(DormancyPolicy dormancyPolicy, LocalDateTime now,
+            MeterRegistry meterRegistry) {
+        this.dormancyPolicy = dormancyPolicy;
+        this.cutoffs = dormancyPolicy.cutoffs(now);
+        this.matched = new LongAdder[dormancyPolicy.ruleCount()];
+        for (int i = 0; i < matched.length; i++) {
+            matched[i] = new LongAdder();
+        }
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public InactiveUserRow process(InactiveUserRow row) {
+        int rule = dormancyPolicy.ruleOf(row.grade(), row.socialType());
+        if (!row.updatedDate().isBefore(cutoffs[rule])) {
+            return null;
+        }
+        matched[rule].increment();
+        return row.inactive();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int rule = 0; rule < matched.length; rule++) {
+            String name = dormancyPolicy.name(rule);
+            long count = matched[rule].sum();
+            counts.put(name, count);
+            stepExecution.getExecutionContext().putLong("policy." + name + ".matched", count);
+            Counter.builder(POLICY_MATCHED)
+                    .tag("rule", name)
+                    .register(meterRegistry)
+                    .increment(count);
+        }
+        log.info("{} dormant members by rule {}", stepExecution.getStepName(), counts);
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.jobs.inactive.readers.IdBufferItemReader;
+import com.litsynp.batch.domain.jobs.inactive.readers.IdRangeClaimingItemReader;
+import com.litsynp.batch.domain.jobs.inactive.readers.JpaKeysetPagingItemReader;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 휴면 전환 Job이 member 테이블을 조회하는 SQL과 JPQL 조각. Reader, Tasklet, Partitioner, Decider가 이 조각으로 쿼리를 만들고,
+ * InactiveQueryPlanCheck도 같은 조각(JPQL은 toSql()로 옮겨서)에 값만 넣어 EXPLAIN하므로 조건을 바꾸면 실행 계획 확인도 함께 바뀐다.
+ * <p>
+ * 파라미터 이름은 InactiveScanWindow를 따른다: :status, :updatedBefore(제외), :updatedAfter(포함).
+ */
+public final class InactiveUserQueries {
+
+    private static final Pattern PROPERTY = Pattern.compile("\\bu\\.(\\w+)");
+
+    /**
+     * 가장 짧은 휴면 기준이 지난 활성 회원. (status, updated_date, idx) 인덱스 범위만 읽는다.
+     */
+    public static final String CANDIDATES = " from member" +
+            " where status = :status and updated_date < :updatedBefore";
+
+    /**
+     * 이전 실행 이후의 구간만 찾을 때 CANDIDATES 뒤에 붙인다.
+     */
+    public static final String WINDOW_CONDITION = " and updated_date >= :updatedAfter";
+
+    /**
+     * IdRangeClaimingItemReader가 가져간 :fromIdx(포함) ~ :toIdx(제외) 구간.
+     */
+    public static final String CLAIMED_RANGE =
+            " and idx >= :" + IdRangeClaimingItemReader.FROM_PARAMETER +
+            " and idx < :" + IdRangeClaimingItemReader.TO_PARAMETER;
+
+    /**
+     * InactiveUserRangePartitioner가 나눈 :minIdx ~ :maxIdx 구간(둘 다 포함).
+     */
+    public static final String PARTITION_RANGE = " and idx >= :minIdx and idx <= :maxIdx";
+
+    public static final String ORDER_BY_IDX = " order by idx";
+
+    /**
+     * 파티셔닝 없이 실행되는 IdRangeClaimingItemReader가 대상의 idx 범위를 구하는 select 절. 뒤에 CANDIDATES를 붙인다.
+     */
+    public static final String IDX_BOUNDS = "select min(idx), max(idx)";
+
+    /**
+     * JPQL로 읽는 Reader와 Tasklet의 대상 조건. CANDIDATES와 같은 조건이다.
+     */
+    public static final String JPQL_CANDIDATES = " from User as u" +
+            " where u.status = :status and u.updatedDate < :updatedBefore";
+
+    public static final String JPQL_WINDOW_CONDITION = " and u.updatedDate >= :updatedAfter";
+
+    /**
+     * 키셋 Reader가 마지막으로 읽은 idx 다음부터 읽는 조건
+     */
+    public static final String KEYSET_AFTER =
+            " and u.idx > :" + JpaKeysetPagingItemReader.LAST_KEY_PARAMETER;
+
+    /**
+     * 파티션의 idx 구간 끝(포함). 파티셔닝 없이 실행되면 붙이지 않는다.
+     */
+    public static final String KEYSET_MAX = " and u.idx <= :maxIdx";
+
+    public static final String JPQL_ORDER_BY_IDX = " order by u.idx";
+
+    /**
+     * IdBufferItemReader가 먼저 읽어 둔 키 한 페이지의 행. 키를 읽은 뒤 바뀐 회원은 Processor와 Writer가 다시 거른다.
+     */
+    public static final String JPQL_KEYS =
+            " from User as u where u.idx in :" + IdBufferItemReader.KEYS_PARAMETER;
+
+    /**
+     * InactiveUserRow 생성자에 넘기는 속성. 등급별 규칙이 있으면 등급과 소셜 타입을 함께 읽는다.
+     */
+    public static final String ROW_PROPERTIES =
+            "u.idx, u.status, u.grade, u.socialType, u.updatedDate";
+
+    /**
+     * 규칙이 없으면 등급과 소셜 타입을 읽지 않으므로 (status, updated_date, idx) 인덱스만 읽는다.
+     */
+    public static final String INDEX_ROW_PROPERTIES = "u.idx, u.status, u.updatedDate";
+
+    /**
+     * ROW_PROPERTIES와 같은 컬럼. JDBC로 InactiveUserRow를 읽을 때 쓴다.
+     */
+    public static final String ROW_COLUMNS = toSql(ROW_PROPERTIES);
+
+    /**
+     * INDEX_ROW_PROPERTIES와 같은 컬럼을 읽고, 읽지 않는 등급과 소셜 타입은 null로 채운다.
+     */
+    public static final String INDEX_ROW_COLUMNS =
+            "idx, status, null as grade, null as social_type, updated_date";
+
+    /**
+     * 휴면 전환 예정 안내 대상. JdbcCursorItemReader로 읽으므로 status, updatedAfter, updatedBefore 순서의 ? 파라미터를 쓰고, 인덱스
+     * 순서(updated_date, idx)로 읽어 정렬하지 않는다.
+     */
+    public static final String NOTICE_SQL = "select idx, email, grade, social_type, updated_date" +
+            " from member" +
+            " where status = ? and updated_date >= ? and updated_date < ?" +
+            " order by updated_date, idx";
+
+    private InactiveUserQueries() {
+    }
+
+    /**
+     * 대상의 idx만 읽는 SQL. 구간(updatedAfter)이 있으면 windowed, 파티션의 idx 구간이 있으면 bounded다.
+     * <p>
+     * (status, updated_date, idx) 인덱스는 updated_date 순서라 order by idx를 붙이면 DB가 대상 전체를 정렬한다. 인덱스 순서 그대로 읽고, 받는
+     * 쪽이 LongKeyBuffer.sort()로 정렬한다.
+     */
+    public static String keyQuery(boolean windowed, boolean bounded) {
+        return "select idx" + CANDIDATES
+                + (windowed ? WINDOW_CONDITION : "")
+                + (bounded ? PARTITION_RANGE : "");
+    }
+
+    /**
+     * 키셋 Reader의 JPQL. 구간(updatedAfter)이 있으면 windowed, 파티션의 구간 끝(maxIdx)이 있으면 bounded다.
+     */
+    public static String keysetQuery(String selectClause, boolean windowed, boolean bounded) {
+        return selectClause + JPQL_CANDIDATES
+                + (windowed ? JPQL_WINDOW_CONDITION : "")
+                + KEYSET_AFTER
+                + (bounded ? KEYSET_MAX : "")
+                + JPQL_ORDER_BY_IDX;
+    }
+
+    /**
+     * 이 클래스의 JPQL을 Hibernate가 실행하는 것과 같은 조건의 SQL로 옮긴다. User 엔티티는 member 테이블이고, 속성의 컬럼 이름은 camelCase를
+     * snake_case로 바꾼 이름이다. 실행 계획을 확인할 때 쓴다.
+     */
+    public static String toSql(String jpql) {
+        return PROPERTY.matcher(jpql.replace(" from User as u", " from member"))
+                .replaceAll(match -> match.group(1)
+                        .replaceAll("([a-z])([A-Z])", "$1_$2")
+                        .toLowerCase(Locale.ROOT));
+    }
+}
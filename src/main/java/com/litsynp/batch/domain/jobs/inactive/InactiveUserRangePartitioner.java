@@ -0,0 +1,121 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.IdBuffer;
+import com.litsynp.batch.domain.jobs.inactive.readers.LongKeyBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.batch.core.partition.PartitionNameProvider;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * 휴면 전환 대상 회원의 idx 범위를 gridSize 개의 구간으로 나눈다.
+ * <p>
+ * InactiveUserPartitioner는 등급마다 파티션을 하나씩 만들기 때문에 gridSize와 관계없이 파티션이 3개로 고정되고, 대상 회원이 한 등급에 몰려 있으면 한
+ * 스레드가 대부분의 일을 하게 된다.
+ * <p>
+ * 이 Partitioner는 대상 회원의 idx를 인덱스 순서로 한 번만 읽어 LongKeyBuffer에 담고(키 하나에 8바이트, 많으면 메모리 매핑 파일) 정렬한 뒤, N /
+ * gridSize 번째마다 경계값을 골라 각 구간의 대상 회원 수가 거의 같도록 나눈다. 경계마다 limit 1 offset :offset으로 조회하면 파티션마다 앞의 행을
+ * 모두 건너뛰어야 하므로, 인덱스를 gridSize 번 다시 훑게 된다. 각 ExecutionContext에는 구간의 시작과 끝 idx(minIdx, maxIdx, 둘 다 포함)와, Reader가 같은 조건으로 읽도록 updated_date 구간(updatedAfter,
+ * updatedBefore)이 들어간다.
+ * <p>
+ * 파티션 이름은 대상 수와 관계없이 항상 InactiveUserTask0..gridSize-1이다. 대상이 gridSize보다 적으면 남는 파티션은 빈 구간으로 만든다. 재시작하면
+ * SimpleStepExecutionSplitter는 getPartitionNames()가 반환한 이름의 파티션만 이전 실행의 ExecutionContext로 다시 실행하는데, 남은 대상 수로
+ * 파티션을 다시 나누면 실패한 파티션의 이름이 빠져 그 구간을 처리하지 않은 채 COMPLETED로 끝날 수 있기 때문이다.
+ */
+public class InactiveUserRangePartitioner implements Partitioner, PartitionNameProvider {
+
+    public static final String MIN_IDX = "minIdx";
+    public static final String MAX_IDX = "maxIdx";
+    public static final String UPDATED_AFTER = "updatedAfter";
+    public static final String UPDATED_BEFORE = "updatedBefore";
+    private static final String INACTIVE_USER_TASK = "InactiveUserTask";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final InactiveScanWindow window;
+    private final IdBuffer idBuffer;
+    private final String keySql;
+
+    public InactiveUserRangePartitioner(NamedParameterJdbcTemplate jdbcTemplate,
+            InactiveScanWindow window, IdBuffer idBuffer) {
+        // 경계를 고르는 동안 커서로 키를 나눠 받도록 fetchSize만 바꾼 JdbcTemplate을 쓴다
+        JdbcTemplate keyTemplate = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        keyTemplate.setFetchSize(idBuffer.getFetchSize());
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(keyTemplate);
+        this.window = window;
+        this.idBuffer = idBuffer;
+        this.keySql = keySql(window.isFullScan());
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("status", UserStatus.ACTIVE.name())
+                .addValue("updatedBefore", window.updatedBefore())
+                .addValue("updatedAfter", window.updatedAfter());
+
+        int grid = Math.max(gridSize, 1);
+        Map<String, ExecutionContext> map = new HashMap<>(grid);
+        long[] boundaries;
+        try (LongKeyBuffer keys = new LongKeyBuffer(idBuffer.getSpillThreshold(),
+                Path.of(idBuffer.getSpillDirectory()))) {
+            jdbcTemplate.query(keySql, parameters,
+                    (RowCallbackHandler) rs -> keys.add(rs.getLong(1)));
+            // DB에서 order by idx로 정렬하지 않고 받은 키를 여기서 정렬한다
+            keys.sort();
+            // i번째 구간은 (i + 1) * N / partitions 번째 대상 회원까지 포함한다
+            boundaries = keys.boundaries(grid);
+            if (boundaries.length > 0) {
+                long minIdx = keys.get(0);
+                for (int i = 0; i < boundaries.length; i++) {
+                    map.put(INACTIVE_USER_TASK + i, range(minIdx, boundaries[i]));
+                    minIdx = boundaries[i] + 1;
+                }
+            }
+        }
+        // 대상이 gridSize보다 적으면 남는 파티션은 빈 구간으로 만든다
+        for (int i = boundaries.length; i < grid; i++) {
+            map.put(INACTIVE_USER_TASK + i, range(0L, -1L));
+        }
+        return map;
+    }
+
+    /**
+     * 재시작할 때 다시 나누지 않고 이전 실행의 파티션을 이름으로 찾는다. partition()이 만드는 이름과 같아야 한다.
+     */
+    @Override
+    public Collection<String> getPartitionNames(int gridSize) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < Math.max(gridSize, 1); i++) {
+            names.add(INACTIVE_USER_TASK + i);
+        }
+        return names;
+    }
+
+    /**
+     * 경계를 고르기 위해 대상 회원의 idx를 인덱스 순서로 읽는 SQL
+     */
+    public static String keySql(boolean fullScan) {
+        return InactiveUserQueries.keyQuery(!fullScan, false);
+    }
+
+    private ExecutionContext range(long minIdx, long maxIdx) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(MIN_IDX, minIdx);
+        context.putLong(MAX_IDX, maxIdx);
+        if (!window.isFullScan()) {
+            context.putString(UPDATED_AFTER, window.updatedAfter().toString());
+        }
+        context.putString(UPDATED_BEFORE, window.updatedBefore().toString());
+        return context;
+    }
+}
@@ -0,0 +1,34 @@
+package com.litsynp.batch.domain.jobs.inactive;
+
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import com.litsynp.batch.domain.enums.UserStatus;
+import java.time.LocalDateTime;
+
+/**
+ * 휴면 전환에 필요한 회원 컬럼만 담은 읽기 전용 프로젝션.
+ * <p>
+ * User 엔티티를 읽으면 비밀번호 해시를 포함한 모든 컬럼을 읽고, 영속성 컨텍스트가 변경 감지를 위해 행마다 스냅샷을 만든다. JPQL 생성자
+ * 표현식(select new ...InactiveUserRow(u.idx, u.status, ...))으로 읽은 이 레코드는 영속성 컨텍스트가 관리하지 않는다. grade, socialType,
+ * updatedDate는 DormancyPolicy로 회원에게 맞는 휴면 기준을 고를 때 사용한다.
+ *
+ * @param idx         회원 idx
+ * @param status      회원 상태
+ * @param grade       회원 등급
+ * @param socialType  소셜 타입
+ * @param updatedDate 마지막으로 수정한 시각
+ */
+public record InactiveUserRow(Long idx, UserStatus status, Grade grade, SocialType socialType,
+                              LocalDateTime updatedDate) {
+
+    /**
+     * 휴면 기준이 하나뿐이라 등급과 소셜 타입이 필요 없을 때 사용한다. (status, updated_date, idx) 인덱스만으로 읽을 수 있다.
+     */
+    public InactiveUserRow(Long idx, UserStatus status, LocalDateTime updatedDate) {
+        this(idx, status, null, null, updatedDate);
+    }
+
+    public InactiveUserRow inactive() {
+        return new InactiveUserRow(idx, UserStatus.INACTIVE, grade, socialType, updatedDate);
+    }
+}
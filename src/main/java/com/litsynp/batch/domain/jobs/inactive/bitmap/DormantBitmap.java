@@ -0,0 +1,171 @@
+package com.litsynp.batch.domain.jobs.inactive.bitmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.LongConsumer;
+
+/**
+ * 휴면 회원 idx 집합을 담은 비트맵 파일을 메모리 매핑해 읽는다.
+ * <p>
+ * idx를 상위 비트(key = idx >>> 16)로 65536개씩 묶은 컨테이너로 저장한다(Roaring 비트맵과 같은 방식). 컨테이너에 idx가 4096개 이하면 하위
+ * 16비트를 오름차순 char 배열로, 그보다 많으면 8KB 비트맵(long 1024개)으로 저장하므로 어느 쪽이든 idx 하나에 2바이트를 넘지 않는다.
+ * <p>
+ * contains()는 매핑한 버퍼를 절대 위치로만 읽으므로 복사나 객체 생성이 없고 여러 스레드에서 함께 사용할 수 있다. 디렉터리와 char 배열은 이진 탐색,
+ * 비트맵은 비트 하나를 확인한다.
+ *
+ * <pre>
+ * 헤더 (40바이트)    magic(int) formatVersion(int) generation(long) asOfEpochMillis(long) cardinality(long)
+ *                   containerCount(int) reserved(int)
+ * 디렉터리 (16바이트씩) key(long) cardinality(int) offset(int)   - key 오름차순
+ * 컨테이너           char[cardinality] 또는 long[1024]
+ * </pre>
+ */
+public final class DormantBitmap {
+
+    static final int MAGIC = 0x444D4231;  // "DMB1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    static final int DIRECTORY_ENTRY_BYTES = 16;
+    static final int CONTAINER_BITS = 16;
+    static final int LOW_MASK = (1 << CONTAINER_BITS) - 1;
+    static final int BITMAP_WORDS = (1 << CONTAINER_BITS) / Long.SIZE;
+    static final int ARRAY_MAX_CARDINALITY = 4096;
+
+    private final ByteBuffer buffer;
+    private final long generation;
+    private final Instant asOf;
+    private final long cardinality;
+    private final int containerCount;
+
+    DormantBitmap(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a dormant member bitmap");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported bitmap format version "
+                    + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.generation = buffer.getLong(8);
+        this.asOf = Instant.ofEpochMilli(buffer.getLong(16));
+        this.cardinality = buffer.getLong(24);
+        this.containerCount = buffer.getInt(32);
+        if (buffer.capacity() < HEADER_BYTES + (long) containerCount * DIRECTORY_ENTRY_BYTES) {
+            throw new IllegalArgumentException("Truncated bitmap directory");
+        }
+    }
+
+    /**
+     * 파일을 읽기 전용으로 매핑한다. 매핑은 파일을 닫거나 다른 파일로 교체(rename)해도 유효하다.
+     */
+    public static DormantBitmap map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2GB");
+            }
+            try {
+                return new DormantBitmap(channel.map(MapMode.READ_ONLY, 0, size));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Could not read " + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    public boolean contains(long idx) {
+        if (idx < 0) {
+            return false;
+        }
+        int entry = findContainer(idx >>> CONTAINER_BITS);
+        if (entry < 0) {
+            return false;
+        }
+        int position = HEADER_BYTES + entry * DIRECTORY_ENTRY_BYTES;
+        int containerCardinality = buffer.getInt(position + 8);
+        int offset = buffer.getInt(position + 12);
+        int low = (int) idx & LOW_MASK;
+        if (containerCardinality > ARRAY_MAX_CARDINALITY) {
+            // 시프트는 하위 6비트만 사용하므로 1L << low는 워드 안의 비트 위치다
+            return (buffer.getLong(offset + (low >>> 6) * Long.BYTES) & (1L << low)) != 0;
+        }
+        int from = 0;
+        int to = containerCardinality - 1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            int value = buffer.getChar(offset + mid * Character.BYTES);
+            if (value < low) {
+                from = mid + 1;
+            } else if (value > low) {
+                to = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 모든 idx를 오름차순으로 전달한다.
+     */
+    public void forEach(LongConsumer action) {
+        for (int entry = 0; entry < containerCount; entry++) {
+            int position = HEADER_BYTES + entry * DIRECTORY_ENTRY_BYTES;
+            long high = buffer.getLong(position) << CONTAINER_BITS;
+            int containerCardinality = buffer.getInt(position + 8);
+            int offset = buffer.getInt(position + 12);
+            if (containerCardinality > ARRAY_MAX_CARDINALITY) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long bits = buffer.getLong(offset + word * Long.BYTES);
+                    while (bits != 0) {
+                        action.accept(high | ((long) word << 6) | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            } else {
+                for (int i = 0; i < containerCardinality; i++) {
+                    action.accept(high | buffer.getChar(offset + i * Character.BYTES));
+                }
+            }
+        }
+    }
+
+    /**
+     * 발행할 때마다 1씩 늘어나는 번호
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * 이 시각까지 member 테이블에 반영된 상태를 담고 있다.
+     */
+    public Instant asOf() {
+        return asOf;
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    private int findContainer(long key) {
+        int from = 0;
+        int to = containerCount - 1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            long value = buffer.getLong(HEADER_BYTES + mid * DIRECTORY_ENTRY_BYTES);
+            if (value < key) {
+                from = mid + 1;
+            } else if (value > key) {
+                to = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,155 @@
+package com.litsynp.batch.domain.jobs.inactive.bitmap;
+
+import static com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmap.ARRAY_MAX_CARDINALITY;
+import static com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmap.BITMAP_WORDS;
+import static com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmap.CONTAINER_BITS;
+import static com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmap.DIRECTORY_ENTRY_BYTES;
+import static com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmap.HEADER_BYTES;
+import static com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmap.LOW_MASK;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DormantBitmap 파일을 만든다.
+ * <p>
+ * 컨테이너를 모두 8KB 비트맵으로 메모리에 들고 있다가 파일에 쓸 때 idx가 적은 컨테이너만 char 배열로 바꾼다. 메모리는 휴면 회원 수가 아니라 idx
+ * 범위에 비례한다 (idx 1억까지 약 12MB).
+ * <p>
+ * publish()는 같은 디렉터리의 임시 파일에 쓰고 디스크에 기록(force)한 다음 원자적 rename으로 교체한다. 이미 파일을 매핑한 Reader는 교체 전 파일을
+ * 계속 읽으므로, 읽는 쪽에서는 언제나 완전한 이전 세대나 새 세대 중 하나만 보인다.
+ */
+public class DormantBitmapBuilder {
+
+    private final TreeMap<Long, long[]> containers = new TreeMap<>();
+
+    /**
+     * 이전 세대의 idx로 시작한다.
+     */
+    public static DormantBitmapBuilder from(DormantBitmap bitmap) {
+        DormantBitmapBuilder builder = new DormantBitmapBuilder();
+        bitmap.forEach(builder::add);
+        return builder;
+    }
+
+    public DormantBitmapBuilder add(long idx) {
+        long[] words = containers.computeIfAbsent(key(idx), key -> new long[BITMAP_WORDS]);
+        int low = (int) idx & LOW_MASK;
+        words[low >>> 6] |= 1L << low;
+        return this;
+    }
+
+    public DormantBitmapBuilder remove(long idx) {
+        long[] words = containers.get(key(idx));
+        if (words != null) {
+            int low = (int) idx & LOW_MASK;
+            words[low >>> 6] &= ~(1L << low);
+        }
+        return this;
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (long[] words : containers.values()) {
+            cardinality += cardinality(words);
+        }
+        return cardinality;
+    }
+
+    /**
+     * file을 새 세대로 원자적으로 교체한다.
+     */
+    public void publish(Path file, long generation, Instant asOf) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        try {
+            write(temp, generation, asOf);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(Path file, long generation, Instant asOf) throws IOException {
+        // 빈 컨테이너는 쓰지 않는다
+        containers.values().removeIf(words -> cardinality(words) == 0);
+        int containerCount = containers.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES
+                + containerCount * DIRECTORY_ENTRY_BYTES);
+        header.putInt(DormantBitmap.MAGIC)
+                .putInt(DormantBitmap.FORMAT_VERSION)
+                .putLong(generation)
+                .putLong(asOf.toEpochMilli())
+                .putLong(cardinality())
+                .putInt(containerCount)
+                .putInt(0);
+
+        long offset = header.capacity();
+        for (Map.Entry<Long, long[]> container : containers.entrySet()) {
+            int cardinality = cardinality(container.getValue());
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("Bitmap is larger than 2GB");
+            }
+            header.putLong(container.getKey())
+                    .putInt(cardinality)
+                    .putInt((int) offset);
+            offset += cardinality > ARRAY_MAX_CARDINALITY
+                    ? (long) BITMAP_WORDS * Long.BYTES : (long) cardinality * Character.BYTES;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(BITMAP_WORDS * Long.BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header.flip());
+            for (long[] words : containers.values()) {
+                data.clear();
+                if (cardinality(words) > ARRAY_MAX_CARDINALITY) {
+                    data.asLongBuffer().put(words);
+                    data.position(words.length * Long.BYTES);
+                } else {
+                    for (int word = 0; word < words.length; word++) {
+                        long bits = words[word];
+                        while (bits != 0) {
+                            data.putChar((char) ((word << 6) | Long.numberOfTrailingZeros(bits)));
+                            bits &= bits - 1;
+                        }
+                    }
+                }
+                writeFully(channel, data.flip());
+            }
+            // rename한 뒤에 내용이 비어 보이지 않도록 교체 전에 디스크에 기록한다
+            channel.force(true);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long key(long idx) {
+        if (idx < 0) {
+            throw new IllegalArgumentException("Negative idx " + idx);
+        }
+        return idx >>> CONTAINER_BITS;
+    }
+
+    private static int cardinality(long[] words) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+}
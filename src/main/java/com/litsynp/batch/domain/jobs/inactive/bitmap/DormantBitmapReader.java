@@ -0,0 +1,55 @@
+package com.litsynp.batch.domain.jobs.inactive.bitmap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+/**
+ * 로그인, 알림 서비스에서 "이 회원이 휴면인가"를 DB 조회 없이 확인할 때 사용한다.
+ * <p>
+ * 발행된 비트맵 파일을 매핑해 두고 contains()로 조회한다. refresh()는 파일이 다른 파일로 교체되었을 때만 새로 매핑하므로 주기적으로 호출해도 된다.
+ * 교체 중에도 contains()는 이전 세대나 새 세대 중 하나를 온전히 읽는다.
+ */
+public class DormantBitmapReader {
+
+    private final Path file;
+    private volatile Snapshot snapshot;
+
+    public DormantBitmapReader(Path file) throws IOException {
+        this.file = file;
+        refresh();
+    }
+
+    public boolean contains(long idx) {
+        return snapshot.bitmap().contains(idx);
+    }
+
+    public DormantBitmap current() {
+        return snapshot.bitmap();
+    }
+
+    /**
+     * 파일이 교체되었으면 새로 매핑한다.
+     *
+     * @return 새 파일을 매핑했으면 true
+     */
+    public synchronized boolean refresh() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Snapshot current = snapshot;
+        // rename으로 교체하면 fileKey(inode)가 바뀐다. fileKey가 없는 파일 시스템에서는 수정 시각으로 비교한다.
+        if (current != null && Objects.equals(current.fileKey(), attributes.fileKey())
+                && current.lastModified().equals(attributes.lastModifiedTime())) {
+            return false;
+        }
+        snapshot = new Snapshot(attributes.fileKey(), attributes.lastModifiedTime(),
+                DormantBitmap.map(file));
+        return true;
+    }
+
+    private record Snapshot(Object fileKey, FileTime lastModified, DormantBitmap bitmap) {
+
+    }
+}
@@ -0,0 +1,110 @@
+package com.litsynp.batch.domain.jobs.inactive.bitmap;
+
+import com.litsynp.batch.domain.enums.UserStatus;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * 휴면 회원 idx 비트맵(DormantBitmap)을 새 세대로 발행한다.
+ * <p>
+ * 이전 세대가 있으면 그 파일을 읽어 시작하고, 이전 세대의 asOf 이후에 updated_date가 바뀐 회원만 조회해 반영한다. Writer는 휴면으로 바꿀 때
+ * updated_date를 함께 바꾸므로 이번 실행(재시작 전 실행이나 다른 JVM의 파티션 포함)이 바꾼 회원과, 그동안 다시 활성화된 회원이 모두 조회된다.
+ * 조회할 때 아직 커밋되지 않은 변경을 다음 세대에서 놓치지 않도록 overlap만큼 겹쳐 조회한다. 같은 회원을 다시 반영해도 결과는 같다.
+ * <p>
+ * 이전 세대가 없거나 읽을 수 없으면, 또는 fullScan이면 휴면 회원 전체로 다시 만든다.
+ */
+@Slf4j
+public class DormantBitmapTasklet implements Tasklet {
+
+    // status 값마다 (status, updated_date, idx) 인덱스 범위만 읽는다
+    public static final String DELTA_SQL = "select idx from member" +
+            " where status = :status and updated_date >= :since";
+    private static final String FULL_SQL = "select idx from member where status = :inactive";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Path file;
+    private final Duration overlap;
+    private final boolean fullScan;
+
+    public DormantBitmapTasklet(DataSource dataSource, int fetchSize, Path file, Duration overlap,
+            boolean fullScan) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        this.file = file;
+        this.overlap = overlap;
+        this.fullScan = fullScan;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext)
+            throws IOException {
+        // 조회를 시작하기 전의 시각이어야 이 시각 이후의 변경을 다음 세대가 조회한다
+        Instant asOf = Instant.now();
+        DormantBitmap previous = previous();
+
+        DormantBitmapBuilder builder;
+        boolean incremental = previous != null && !fullScan;
+        if (incremental) {
+            builder = DormantBitmapBuilder.from(previous);
+            Timestamp since = Timestamp.from(previous.asOf().minus(overlap));
+            for (UserStatus status : UserStatus.values()) {
+                boolean dormant = status == UserStatus.INACTIVE;
+                jdbcTemplate.query(DELTA_SQL, Map.of("status", status.name(), "since", since),
+                        rs -> {
+                            if (dormant) {
+                                builder.add(rs.getLong(1));
+                            } else {
+                                builder.remove(rs.getLong(1));
+                            }
+                            contribution.incrementReadCount();
+                        });
+            }
+        } else {
+            builder = new DormantBitmapBuilder();
+            jdbcTemplate.query(FULL_SQL, Map.of("inactive", UserStatus.INACTIVE.name()), rs -> {
+                builder.add(rs.getLong(1));
+                contribution.incrementReadCount();
+            });
+        }
+
+        long generation = previous == null ? 1 : previous.generation() + 1;
+        builder.publish(file, generation, asOf);
+        long cardinality = builder.cardinality();
+
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution()
+                .getExecutionContext();
+        executionContext.putLong("bitmap.generation", generation);
+        executionContext.putLong("bitmap.cardinality", cardinality);
+        executionContext.putString("bitmap.mode", incremental ? "incremental" : "full");
+        log.info("Published {} generation {} ({}, {} dormant members)", file, generation,
+                incremental ? "incremental" : "full", cardinality);
+        return RepeatStatus.FINISHED;
+    }
+
+    private DormantBitmap previous() {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return DormantBitmap.map(file);
+        } catch (IOException e) {
+            log.warn("Rebuilding {} from scratch: {}", file, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,22 +1,107 @@
 package com.litsynp.batch.domain.jobs.inactive.listener;
 
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties;
+import com.litsynp.batch.support.JdbcTimingDataSource;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.stereotype.Component;
 
+/**
+ * Job이 끝나면 Step별 처리 건수와 처리량, 단계별(읽기, 처리, 쓰기, JDBC, Java) 소요 시간을 요약해 로그로 남기고, 전체 메트릭을 Prometheus
+ * 형식 파일로 내보낸다.
+ * <p>
+ * Timer는 애플리케이션이 떠 있는 동안 누적되므로, beforeJob에서 값을 기억해 두었다가 afterJob에서 그 차이만 요약한다.
+ */
 @Component
+@AllArgsConstructor
 @Slf4j
 public class InactiveJobListener implements JobExecutionListener {
 
+    private static final String[] PHASES = {
+            InactiveStepListener.CHUNK_READ,
+            InactiveStepListener.CHUNK_PROCESS,
+            InactiveStepListener.CHUNK_WRITE,
+            InactiveStepListener.CHUNK_JDBC,
+            InactiveStepListener.CHUNK_JAVA,
+            JdbcTimingDataSource.TIMER_NAME};
+
+    private final PrometheusMeterRegistry meterRegistry;
+    private final InactiveJobProperties inactiveJobProperties;
+    private final Map<Long, Map<String, Double>> phaseMillisAtStart = new HashMap<>();
+
     // Interface 방식 Listener 구현
     @Override
     public void beforeJob(JobExecution jobExecution) {
         log.info("Before job");
+        phaseMillisAtStart.put(jobExecution.getId(), phaseMillis());
     }
 
     @Override
     public void afterJob(JobExecution jobExecution) {
         log.info("After job");
+
+        Map<String, Double> atStart = phaseMillisAtStart.remove(jobExecution.getId());
+        Map<String, Double> atEnd = phaseMillis();
+        StringBuilder summary = new StringBuilder(String.format("%n%-45s %10s %10s %10s %12s%n",
+                "Step", "Read", "Write", "Seconds", "Items/sec"));
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            long millis = elapsedMillis(stepExecution);
+            summary.append(String.format("%-45s %10d %10d %10.1f %12d%n",
+                    stepExecution.getStepName(), stepExecution.getReadCount(),
+                    stepExecution.getWriteCount(), millis / 1000.0,
+                    millis == 0 ? 0 : stepExecution.getWriteCount() * 1000L / millis));
+        }
+        for (String phase : PHASES) {
+            double millis = atEnd.getOrDefault(phase, 0.0)
+                    - (atStart == null ? 0.0 : atStart.getOrDefault(phase, 0.0));
+            summary.append(String.format("%-45s %10.1f s%n", phase, millis / 1000.0));
+        }
+        log.info("Inactive user job summary:{}", summary);
+
+        exportMetrics();
+    }
+
+    private long elapsedMillis(StepExecution stepExecution) {
+        if (stepExecution.getStartTime() == null || stepExecution.getEndTime() == null) {
+            return 0;
+        }
+        return stepExecution.getEndTime().getTime() - stepExecution.getStartTime().getTime();
+    }
+
+    private Map<String, Double> phaseMillis() {
+        Map<String, Double> millis = new HashMap<>();
+        for (String phase : PHASES) {
+            millis.put(phase, meterRegistry.find(phase).timers().stream()
+                    .mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS))
+                    .sum());
+        }
+        return millis;
+    }
+
+    private void exportMetrics() {
+        String exportPath = inactiveJobProperties.getMetrics().getExportPath();
+        if (exportPath == null || exportPath.isBlank()) {
+            return;
+        }
+        try {
+            Path path = Path.of(exportPath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, meterRegistry.scrape());
+            log.info("Metrics written to {}", path.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Could not write metrics to {}", exportPath, e);
+        }
     }
 }
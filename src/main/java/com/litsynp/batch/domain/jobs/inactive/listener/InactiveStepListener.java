@@ -1,15 +1,57 @@
 package com.litsynp.batch.domain.jobs.inactive.listener;
 
+import com.litsynp.batch.support.JdbcTimingDataSource;
+import com.litsynp.batch.support.StartupMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterChunk;
+import org.springframework.batch.core.annotation.AfterProcess;
+import org.springframework.batch.core.annotation.AfterRead;
 import org.springframework.batch.core.annotation.AfterStep;
+import org.springframework.batch.core.annotation.AfterWrite;
+import org.springframework.batch.core.annotation.BeforeChunk;
+import org.springframework.batch.core.annotation.BeforeProcess;
+import org.springframework.batch.core.annotation.BeforeRead;
 import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.core.annotation.BeforeWrite;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.stereotype.Component;
 
+/**
+ * 청크마다 읽기, 처리, 쓰기에 걸린 시간과 그중 JDBC가 차지한 시간을 기록한다.
+ * <p>
+ * 멀티 스레드 Step에서 여러 스레드가 같은 리스너를 사용하므로, 청크 하나의 시간은 스레드별(ThreadLocal)로 모은다. 파티션 Step이 끝나면 파티션별
+ * 처리 건수와 실행 시간을 기록하고, 재시작을 거친 전체 처리 건수를 ExecutionContext에 남긴다. JVM에서 처음 끝난 청크는 시작 후 걸린 시간과 RSS를
+ * StartupMetrics로 기록한다.
+ */
 @Component
+@AllArgsConstructor
 @Slf4j
 public class InactiveStepListener {
 
+    public static final String CHUNK_READ = "inactive.chunk.read";
+    public static final String CHUNK_PROCESS = "inactive.chunk.process";
+    public static final String CHUNK_WRITE = "inactive.chunk.write";
+    public static final String CHUNK_JDBC = "inactive.chunk.jdbc";
+    public static final String CHUNK_JAVA = "inactive.chunk.java";
+    public static final String PARTITION_ITEMS = "inactive.partition.items";
+    public static final String PARTITION_DURATION = "inactive.partition.duration";
+    public static final String TOTAL_READ_COUNT = "inactive.total.readCount";
+    public static final String TOTAL_WRITE_COUNT = "inactive.total.writeCount";
+
+    private static final ThreadLocal<ChunkTiming> CHUNK_TIMING = ThreadLocal.withInitial(
+            ChunkTiming::new);
+
+    private final MeterRegistry meterRegistry;
+
     // Annotation 방식 Listener 구현
     @BeforeStep
     public void beforeStep(StepExecution stepExecution) {
@@ -19,5 +61,118 @@ public class InactiveStepListener {
     @AfterStep
     public void afterStep(StepExecution stepExecution) {
         log.info("After step");
+
+        // 재시작한 StepExecution은 이전 실행의 ExecutionContext를 이어받으므로, 실행마다 더하면 재시작을 거친 전체 처리 건수가 남는다
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        executionContext.putLong(TOTAL_READ_COUNT,
+                executionContext.getLong(TOTAL_READ_COUNT, 0L) + stepExecution.getReadCount());
+        executionContext.putLong(TOTAL_WRITE_COUNT,
+                executionContext.getLong(TOTAL_WRITE_COUNT, 0L) + stepExecution.getWriteCount());
+
+        String partition = partitionOf(stepExecution.getStepName());
+        if (partition == null || stepExecution.getStartTime() == null) {
+            return;
+        }
+        long elapsedMillis = System.currentTimeMillis() - stepExecution.getStartTime().getTime();
+        Counter.builder(PARTITION_ITEMS)
+                .tag("partition", partition)
+                .register(meterRegistry)
+                .increment(stepExecution.getWriteCount());
+        Timer.builder(PARTITION_DURATION)
+                .tag("partition", partition)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(elapsedMillis));
+        log.info("Partition {} wrote {} items ({} items/sec)", partition,
+                stepExecution.getWriteCount(),
+                elapsedMillis == 0 ? 0 : stepExecution.getWriteCount() * 1000L / elapsedMillis);
+    }
+
+    @BeforeChunk
+    public void beforeChunk(ChunkContext chunkContext) {
+        CHUNK_TIMING.get().start();
+    }
+
+    @AfterChunk
+    public void afterChunk(ChunkContext chunkContext) {
+        ChunkTiming timing = CHUNK_TIMING.get();
+        String partition = partitionOf(chunkContext.getStepContext().getStepName());
+        String tag = partition == null ? "none" : partition;
+
+        long totalNanos = System.nanoTime() - timing.chunkStartedAt;
+        long jdbcNanos = JdbcTimingDataSource.threadNanos() - timing.jdbcNanosAtStart;
+        record(CHUNK_READ, tag, timing.readNanos);
+        record(CHUNK_PROCESS, tag, timing.processNanos);
+        record(CHUNK_WRITE, tag, timing.writeNanos);
+        record(CHUNK_JDBC, tag, jdbcNanos);
+        record(CHUNK_JAVA, tag, Math.max(0, totalNanos - jdbcNanos));
+        StartupMetrics.recordFirstChunk(meterRegistry);
+    }
+
+    @BeforeRead
+    public void beforeRead() {
+        CHUNK_TIMING.get().phaseStartedAt = System.nanoTime();
+    }
+
+    @AfterRead
+    public void afterRead(Object item) {
+        ChunkTiming timing = CHUNK_TIMING.get();
+        timing.readNanos += System.nanoTime() - timing.phaseStartedAt;
+    }
+
+    @BeforeProcess
+    public void beforeProcess(Object item) {
+        CHUNK_TIMING.get().phaseStartedAt = System.nanoTime();
+    }
+
+    @AfterProcess
+    public void afterProcess(Object item, Object result) {
+        ChunkTiming timing = CHUNK_TIMING.get();
+        timing.processNanos += System.nanoTime() - timing.phaseStartedAt;
+    }
+
+    @BeforeWrite
+    public void beforeWrite(List<?> items) {
+        CHUNK_TIMING.get().phaseStartedAt = System.nanoTime();
+    }
+
+    @AfterWrite
+    public void afterWrite(List<?> items) {
+        ChunkTiming timing = CHUNK_TIMING.get();
+        timing.writeNanos += System.nanoTime() - timing.phaseStartedAt;
+    }
+
+    private void record(String name, String partition, long nanos) {
+        Timer.builder(name)
+                .tag("partition", partition)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 파티션의 StepExecution 이름은 "partitionerStep:InactiveUserTask0"처럼 파티션을 나눈 Step(partitionerStep)의 이름 뒤에 파티션 이름이
+     * 붙는다. 실행하는 Worker Step(inactiveUserStep 등)의 이름은 들어가지 않는다.
+     */
+    private String partitionOf(String stepName) {
+        int separator = stepName.indexOf(':');
+        return separator < 0 ? null : stepName.substring(separator + 1);
+    }
+
+    private static class ChunkTiming {
+
+        private long chunkStartedAt;
+        private long jdbcNanosAtStart;
+        private long phaseStartedAt;
+        private long readNanos;
+        private long processNanos;
+        private long writeNanos;
+
+        void start() {
+            chunkStartedAt = System.nanoTime();
+            jdbcNanosAtStart = JdbcTimingDataSource.threadNanos();
+            readNanos = 0;
+            processNanos = 0;
+            writeNanos = 0;
+        }
     }
 }
@@ -0,0 +1,215 @@
+package com.litsynp.batch.domain.jobs.inactive.readers;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.TypedQuery;
+import javax.sql.DataSource;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 대상의 키만 먼저 모두 읽고, 행은 페이지 단위로 키를 지정해 읽는 ItemReader.
+ * <p>
+ * ListItemReader와 QueueItemReader는 대상 엔티티 전체를 메모리에 올리므로 대상이 많으면 OutOfMemoryError가 난다. 이 Reader는 open()에서
+ * keyQuery로 키만 커서로 읽어 LongKeyBuffer에 담고(키 하나에 8바이트, 많으면 메모리 매핑 파일), read()에서는 pageSize 개의 키로 hydrateQuery(where
+ * idx in :keys)를 한 번 실행해 행을 읽는다.
+ * <p>
+ * keyQuery는 키를 어떤 순서로 반환해도 된다. 읽은 키는 LongKeyBuffer.sort()로 정렬하므로 DB가 order by로 정렬하지 않아도 되고, 행은 키 순서로 읽힌다.
+ * 마지막으로 반환한 키는 ExecutionContext에 저장되므로 재시작하면 그 다음 키부터 읽는다.
+ */
+public class IdBufferItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T>,
+        InitializingBean {
+
+    public static final String KEYS_PARAMETER = "keys";
+    private static final String LAST_KEY = "last.key";
+
+    private DataSource dataSource;
+    private EntityManagerFactory entityManagerFactory;
+    private String keyQuery;
+    private Map<String, Object> parameterValues = new HashMap<>();
+    private String hydrateQuery;
+    private Class<T> resultClass;
+    private Function<? super T, Long> keyExtractor;
+    private IntSupplier pageSize = () -> 10;
+    private int fetchSize = 1000;
+    private int spillThreshold = 1_000_000;
+    private Path spillDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+    private boolean saveState = true;
+
+    private LongKeyBuffer keys;
+    private long position;
+    private long lastKey;
+    private EntityManager entityManager;
+    private final Deque<T> page = new ArrayDeque<>();
+
+    public IdBufferItemReader() {
+        setName(ClassUtils.getShortName(IdBufferItemReader.class));
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * 키 하나만 반환하는 SQL. 순서는 상관없다.
+     */
+    public void setKeyQuery(String keyQuery) {
+        this.keyQuery = keyQuery;
+    }
+
+    /**
+     * keyQuery의 파라미터
+     */
+    public void setParameterValues(Map<String, Object> parameterValues) {
+        this.parameterValues = parameterValues;
+    }
+
+    /**
+     * :keys 파라미터로 행을 읽는 JPQL. 엔티티 대신 생성자 표현식으로 resultClass를 읽어도 된다.
+     */
+    public void setHydrateQuery(String hydrateQuery, Class<T> resultClass) {
+        this.hydrateQuery = hydrateQuery;
+        this.resultClass = resultClass;
+    }
+
+    public void setKeyExtractor(Function<? super T, Long> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public void setPageSize(int pageSize) {
+        Assert.isTrue(pageSize > 0, "Page size must be greater than zero");
+        this.pageSize = () -> pageSize;
+    }
+
+    /**
+     * 페이지를 읽을 때마다 크기를 다시 가져온다. 청크 크기가 바뀌는 Step에서 페이지 크기를 청크 크기에 맞출 때 사용한다.
+     */
+    public void setPageSize(IntSupplier pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 키가 이 개수를 넘으면 spillDirectory의 메모리 매핑 파일로 옮긴다.
+     */
+    public void setSpillThreshold(int spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    public void setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(dataSource, "DataSource is required");
+        Assert.notNull(entityManagerFactory, "EntityManagerFactory is required");
+        Assert.hasText(keyQuery, "Key query is required");
+        Assert.hasText(hydrateQuery, "Hydrate query is required");
+        Assert.isTrue(hydrateQuery.contains(":" + KEYS_PARAMETER),
+                "Hydrate query must bind the :" + KEYS_PARAMETER + " parameter");
+        Assert.notNull(keyExtractor, "Key extractor is required");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        entityManager = entityManagerFactory.createEntityManager(new HashMap<>());
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        keys = new LongKeyBuffer(spillThreshold, spillDirectory);
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(keyQuery, parameterValues,
+                (RowCallbackHandler) rs -> keys.add(rs.getLong(1)));
+        keys.sort();
+
+        String key = getExecutionContextKey(LAST_KEY);
+        if (saveState && executionContext.containsKey(key)) {
+            lastKey = executionContext.getLong(key);
+            position = keys.indexAfter(lastKey);
+        } else {
+            position = 0;
+        }
+        page.clear();
+    }
+
+    @Override
+    public synchronized T read() {
+        // 키를 읽은 뒤 삭제된 행은 빠지므로 빈 페이지가 나올 수 있다
+        while (page.isEmpty() && position < keys.size()) {
+            hydrateNextPage();
+        }
+        T item = page.poll();
+        if (item != null) {
+            lastKey = keyExtractor.apply(item);
+        }
+        return item;
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(LAST_KEY), lastKey);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        if (keys != null) {
+            keys.close();
+            keys = null;
+        }
+        if (entityManager != null) {
+            entityManager.close();
+            entityManager = null;
+        }
+    }
+
+    private void hydrateNextPage() {
+        long end = Math.min(position + Math.max(pageSize.getAsInt(), 1), keys.size());
+        List<Long> pageKeys = new ArrayList<>((int) (end - position));
+        for (; position < end; position++) {
+            pageKeys.add(keys.get(position));
+        }
+
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        TypedQuery<T> query = entityManager.createQuery(hydrateQuery, resultClass);
+        query.setParameter(KEYS_PARAMETER, pageKeys);
+        page.addAll(query.getResultList());
+        transaction.commit();
+        // 엔티티를 읽었다면 바로 분리(detach)해 Reader의 영속성 컨텍스트가 processor의 변경을 flush하지 않도록 한다.
+        entityManager.clear();
+    }
+}
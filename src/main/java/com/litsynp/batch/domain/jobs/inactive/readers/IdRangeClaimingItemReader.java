@@ -0,0 +1,315 @@
+package com.litsynp.batch.domain.jobs.inactive.readers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.sql.DataSource;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 멀티 스레드 Step에서 스레드마다 서로 겹치지 않는 idx 구간을 가져가(claim) 읽는 ItemReader.
+ * <p>
+ * JpaKeysetPagingItemReader는 read()를 synchronized로 막으므로 한 스레드가 페이지를 조회하는 동안 다른 스레드는 모두 기다린다. 이 Reader는
+ * 다음에 가져갈 idx를 AtomicLong 하나로 두고, 스레드는 getAndAdd(claimWidth)로 [from, from + claimWidth) 구간을 가져가 그 구간만 조회한다.
+ * 구간이 겹치지 않으므로 같은 행을 두 스레드가 읽지 않고, 조회는 스레드마다 따로 실행되므로 전역 잠금이 없다.
+ * <p>
+ * 구간 하나의 행은 청크 하나보다 많을 수 있고, TaskExecutorRepeatTemplate은 청크를 풀의 아무 스레드에서나 실행하므로 구간을 가져간 스레드가 그 구간을
+ * 다 읽는다고 보장할 수 없다. 그래서 읽은 행은 스레드가 아니라 구간(Claim)에 두고, 자기 구간을 다 읽었는데 더 가져갈 구간이 없는 스레드는 다른 구간의
+ * 남은 행을 이어서 읽는다. 행은 ConcurrentLinkedQueue에서 꺼내므로 두 스레드가 같은 행을 반환하지 않는다. read()는 가져갈 구간이 없고, 조회 중인
+ * 구간도 없고, 모든 구간에 남은 행이 없을 때만 null을 반환한다. 멀티 스레드 Step은 처음 null을 받은 청크에서 끝나므로, 남은 행이 있는데 null을
+ * 반환하면 그 행은 읽히지 않은 채 Step이 COMPLETED로 끝난다.
+ * <p>
+ * 쿼리에는 :fromIdx(포함)와 :toIdx(제외) 파라미터가 있어야 한다. 구간의 끝은 setKeyRange로 지정하거나, 없으면 boundsQuery(min, max 두 컬럼)로
+ * open()에서 구한다.
+ * <p>
+ * 체크포인트는 남은 행이나 커밋되지 않은 행이 있는 구간 중 가장 앞 구간의 시작이다. 재시작하면 그 idx부터 다시 가져가며, 그 뒤에서 이미 커밋된 행은 조회
+ * 조건에서 빠졌다면 다시 처리되지 않는다. TaskletStep은 청크를 처리한 스레드에서 그 청크의 트랜잭션 안에 update()를 호출하므로, update()를 호출한
+ * 스레드가 지난 update() 이후 반환한 행은 커밋된 것으로 본다.
+ */
+public class IdRangeClaimingItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T>,
+        InitializingBean {
+
+    public static final String FROM_PARAMETER = "fromIdx";
+    public static final String TO_PARAMETER = "toIdx";
+    private static final String CHECKPOINT = "checkpoint";
+    // 다른 스레드가 구간을 조회하는 동안 기다리는 간격
+    private static final long LOADING_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private String queryString;
+    private String boundsQuery;
+    private Map<String, Object> parameterValues = new HashMap<>();
+    private RowMapper<T> rowMapper;
+    private Long minKey;
+    private Long maxKey;
+    private int claimWidth = 1000;
+    private boolean saveState = true;
+
+    private final AtomicLong cursor = new AtomicLong();
+    // 남은 행이나 커밋되지 않은 행이 있는 구간
+    private final Set<Claim<T>> claims = ConcurrentHashMap.newKeySet();
+    private final Map<Thread, Reading<T>> readings = new ConcurrentHashMap<>();
+    private volatile long upperBound;
+
+    public IdRangeClaimingItemReader() {
+        setName(ClassUtils.getShortName(IdRangeClaimingItemReader.class));
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * :fromIdx <= idx < :toIdx 구간의 행을 읽는 SQL
+     */
+    public void setQueryString(String queryString) {
+        this.queryString = queryString;
+    }
+
+    /**
+     * 읽을 idx의 최솟값과 최댓값을 반환하는 SQL. setKeyRange로 구간을 지정하지 않으면 사용한다.
+     */
+    public void setBoundsQuery(String boundsQuery) {
+        this.boundsQuery = boundsQuery;
+    }
+
+    public void setParameterValues(Map<String, Object> parameterValues) {
+        this.parameterValues = parameterValues;
+    }
+
+    public void setRowMapper(RowMapper<T> rowMapper) {
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * 읽을 idx 구간 (양 끝 포함). 파티션의 구간을 지정할 때 사용한다.
+     */
+    public void setKeyRange(Long minKey, Long maxKey) {
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+    }
+
+    /**
+     * 스레드가 한 번에 가져가는 idx 구간의 너비
+     */
+    public void setClaimWidth(int claimWidth) {
+        Assert.isTrue(claimWidth > 0, "Claim width must be greater than zero");
+        this.claimWidth = claimWidth;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(jdbcTemplate, "DataSource is required");
+        Assert.hasText(queryString, "Query string is required");
+        Assert.isTrue(queryString.contains(":" + FROM_PARAMETER)
+                        && queryString.contains(":" + TO_PARAMETER),
+                "Query string must bind the :" + FROM_PARAMETER + " and :" + TO_PARAMETER
+                        + " parameters");
+        Assert.isTrue((minKey != null && maxKey != null) || boundsQuery != null,
+                "Key range or bounds query is required");
+        Assert.notNull(rowMapper, "Row mapper is required");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        long from = minKey != null ? minKey : 1L;
+        long to = maxKey != null ? maxKey : 0L;
+        if (minKey == null || maxKey == null) {
+            long[] bounds = jdbcTemplate.queryForObject(boundsQuery, parameterValues,
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+            if (bounds != null) {
+                from = minKey != null ? minKey : bounds[0];
+                to = maxKey != null ? maxKey : bounds[1];
+            }
+        }
+
+        String key = getExecutionContextKey(CHECKPOINT);
+        if (saveState && executionContext.containsKey(key)) {
+            from = Math.max(from, executionContext.getLong(key));
+        }
+        cursor.set(from);
+        upperBound = to;
+        claims.clear();
+        readings.clear();
+    }
+
+    @Override
+    public T read() {
+        Reading<T> reading = readings.computeIfAbsent(Thread.currentThread(),
+                thread -> new Reading<>());
+        while (true) {
+            Claim<T> claim = reading.current;
+            if (claim != null) {
+                // 행을 꺼내기 전에 먼저 세어, 체크포인트가 꺼낸 뒤 커밋되기 전의 구간을 끝난 것으로 보지 않게 한다
+                claim.uncommitted.incrementAndGet();
+                T item = claim.items.poll();
+                if (item != null) {
+                    reading.taken.merge(claim, 1, Integer::sum);
+                    return item;
+                }
+                claim.uncommitted.decrementAndGet();
+            }
+
+            claim = claimNext();
+            if (claim == null) {
+                claim = remaining();
+            }
+            if (claim == null) {
+                if (!loading()) {
+                    return null;
+                }
+                // 다른 스레드가 조회 중인 구간의 행을 기다린다
+                LockSupport.parkNanos(LOADING_WAIT_NANOS);
+            }
+            reading.current = claim;
+        }
+    }
+
+    /**
+     * 다음 구간을 가져와 그 구간의 행을 읽는다. 더 가져갈 구간이 없으면 null
+     */
+    private Claim<T> claimNext() {
+        if (cursor.get() > upperBound) {
+            return null;
+        }
+        // 구간을 가져가기 전에 하한으로 먼저 등록해, 다른 스레드가 계산한 체크포인트가 이 스레드가 가져갈 구간을 넘지 않게 한다
+        Claim<T> claim = new Claim<>(cursor.get());
+        claims.add(claim);
+        long from = cursor.getAndAdd(claimWidth);
+        if (from > upperBound) {
+            claims.remove(claim);
+            return null;
+        }
+        long to = Math.min(from + claimWidth, upperBound + 1);
+        claim.from = from;
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource(parameterValues)
+                .addValue(FROM_PARAMETER, from)
+                .addValue(TO_PARAMETER, to);
+        try {
+            List<T> rows = jdbcTemplate.query(queryString, parameters, rowMapper);
+            claim.items.addAll(rows);
+            claim.loaded = true;
+        } catch (RuntimeException e) {
+            // 이 구간은 끝나지 않은 채로 남겨 체크포인트가 넘어가지 않게 한다
+            claim.failed = true;
+            throw e;
+        }
+        return claim;
+    }
+
+    /**
+     * 다른 스레드가 가져간 구간 중 남은 행이 있는 구간
+     */
+    private Claim<T> remaining() {
+        for (Claim<T> claim : claims) {
+            if (!claim.items.isEmpty()) {
+                return claim;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 조회 중인 구간이 있거나 남은 행이 있는 구간이 있는지. 둘 다 없으면 더 반환할 행이 없다.
+     */
+    private boolean loading() {
+        for (Claim<T> claim : claims) {
+            if ((!claim.loaded && !claim.failed) || !claim.items.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        Reading<T> reading = readings.get(Thread.currentThread());
+        if (reading != null) {
+            // 이 스레드가 지난 update() 이후 반환한 행은 커밋되었다
+            reading.taken.forEach((claim, count) -> claim.uncommitted.addAndGet(-count));
+            reading.taken.clear();
+        }
+        claims.removeIf(Claim::isDone);
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(CHECKPOINT), checkpoint());
+        }
+    }
+
+    /**
+     * 이 idx 앞의 행은 모두 커밋되었다.
+     */
+    private long checkpoint() {
+        // 구간은 cursor를 옮기기 전에 등록되므로 cursor를 먼저 읽는다
+        long checkpoint = Math.min(cursor.get(), upperBound + 1);
+        for (Claim<T> claim : claims) {
+            if (!claim.isDone()) {
+                checkpoint = Math.min(checkpoint, claim.from);
+            }
+        }
+        return checkpoint;
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        claims.clear();
+        readings.clear();
+    }
+
+    /**
+     * 가져간 idx 구간과 그 구간에서 아직 반환하지 않은 행
+     */
+    private static class Claim<T> {
+
+        private final Queue<T> items = new ConcurrentLinkedQueue<>();
+        // 반환했지만 커밋되지 않은 행 수
+        private final AtomicInteger uncommitted = new AtomicInteger();
+        private volatile long from;
+        private volatile boolean loaded;
+        private volatile boolean failed;
+
+        Claim(long from) {
+            this.from = from;
+        }
+
+        /**
+         * 모든 행을 반환했고 반환한 행이 모두 커밋되었다. 남은 행을 먼저 확인해야 read()가 꺼낸 행을 놓치지 않는다.
+         */
+        boolean isDone() {
+            return loaded && items.isEmpty() && uncommitted.get() == 0;
+        }
+    }
+
+    /**
+     * 스레드 하나가 읽고 있는 구간과, 지난 update() 이후 구간마다 반환한 행 수. 그 스레드만 사용한다.
+     */
+    private static class Reading<T> {
+
+        private Claim<T> current;
+        private final Map<Claim<T>, Integer> taken = new HashMap<>();
+    }
+}
@@ -0,0 +1,316 @@
+package com.litsynp.batch.domain.jobs.inactive.readers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 키셋(seek) 방식으로 페이지를 읽는 JPA ItemReader.
+ * <p>
+ * JpaPagingItemReader는 offset/limit으로 페이지를 읽기 때문에 처리한 행이 조회 조건에서 빠지면 다음 페이지를 건너뛰게 되고, getPage()를 0으로
+ * 고정해 이를 피하면 매 청크마다 첫 페이지를 다시 조회하게 된다. 이 Reader는 마지막으로 읽은 키보다 큰 행만 키 순서로 읽기 때문에(where idx >
+ * :lastIdx order by idx) 첫 페이지와 마지막 페이지의 조회 비용이 같다.
+ * <p>
+ * 쿼리 문자열에는 반드시 :lastIdx 파라미터와 키 정렬(order by)이 포함되어야 한다. 커밋이 끝난 위치(체크포인트)는 ExecutionContext에 저장되므로
+ * 재시작하면 그 다음 키부터 다시 읽는다.
+ * <p>
+ * 멀티 스레드 Step에서는 스레드마다 청크가 커밋되는 순서가 다르므로 마지막으로 반환한 키를 저장하면 아직 커밋되지 않은 청크를 건너뛸 수 있다. 그래서 스레드마다
+ * 커밋되지 않은 청크에서 처음 반환한 키를 기억하고, update()에서는 그중 가장 작은 키의 바로 앞을 체크포인트로 저장한다. TaskletStep은 청크를 커밋하는
+ * 트랜잭션 안에서 그 청크를 처리한 스레드로 update()를 호출하므로, update()를 호출한 스레드의 청크는 커밋된 것으로 본다. 체크포인트 뒤에서 이미 커밋된
+ * 행은 재시작할 때 다시 읽히지만, 조회 조건에서 빠졌다면 다시 처리되지 않는다.
+ * <p>
+ * prefetchPages를 지정하면 prefetchExecutor의 Task 하나가 다음 페이지들을 미리 읽어 크기가 prefetchPages인 큐에 채운다. 큐가 가득 차면 미리
+ * 읽기를 멈추므로 메모리는 prefetchPages 페이지 분만 사용한다. 미리 읽은 행과 관계없이 ExecutionContext에는 Step에 반환한 마지막 키만 저장한다.
+ * Task는 close()에서 끝날 때까지 기다리므로, prefetchExecutor는 동시에 열린 Reader 수만큼 Task를 실행할 수 있어야 한다.
+ */
+public class JpaKeysetPagingItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T>,
+        InitializingBean {
+
+    public static final String LAST_KEY_PARAMETER = "lastIdx";
+    private static final String LAST_KEY = "last.key";
+    private static final Object END_OF_DATA = new Object();
+
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private String queryString;
+    private Map<String, Object> parameterValues = new HashMap<>();
+    private Function<? super T, Long> keyExtractor;
+    private IntSupplier pageSize = () -> 10;
+    private long startAfterKey = 0L;
+    private boolean saveState = true;
+    private int prefetchPages = 0;
+    private TaskExecutor prefetchExecutor;
+
+    private final Deque<T> page = new ArrayDeque<>();
+    // 스레드별로 커밋되지 않은 청크에서 처음 반환한 키
+    private final Map<Thread, Long> uncommittedChunks = new HashMap<>();
+    private long lastKey;
+    private long fetchedKey;
+    private int currentPageSize;
+    private boolean exhausted;
+
+    private BlockingQueue<Object> prefetched;
+    private CountDownLatch prefetcherDone;
+    private volatile boolean prefetching;
+
+    public JpaKeysetPagingItemReader() {
+        setName(ClassUtils.getShortName(JpaKeysetPagingItemReader.class));
+    }
+
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void setQueryString(String queryString) {
+        this.queryString = queryString;
+    }
+
+    public void setParameterValues(Map<String, Object> parameterValues) {
+        this.parameterValues = parameterValues;
+    }
+
+    public void setKeyExtractor(Function<? super T, Long> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public void setPageSize(int pageSize) {
+        Assert.isTrue(pageSize > 0, "Page size must be greater than zero");
+        this.pageSize = () -> pageSize;
+    }
+
+    /**
+     * 페이지를 읽을 때마다 크기를 다시 가져온다. 청크 크기가 바뀌는 Step에서 페이지 크기를 청크 크기에 맞출 때 사용한다.
+     */
+    public void setPageSize(IntSupplier pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 이 키보다 큰 행부터 읽는다. ExecutionContext에 저장된 키가 있으면 그 값이 우선한다.
+     */
+    public void setStartAfterKey(long startAfterKey) {
+        this.startAfterKey = startAfterKey;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    /**
+     * 0보다 크면 별도 스레드가 최대 prefetchPages 페이지를 미리 읽어 둔다.
+     */
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    /**
+     * 미리 읽기 Task를 실행할 TaskExecutor. 지정하지 않으면 Reader를 열 때마다 스레드를 새로 만든다.
+     */
+    public void setPrefetchExecutor(TaskExecutor prefetchExecutor) {
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(entityManagerFactory, "EntityManagerFactory is required");
+        Assert.hasText(queryString, "Query string is required");
+        Assert.isTrue(queryString.contains(":" + LAST_KEY_PARAMETER),
+                "Query string must bind the :" + LAST_KEY_PARAMETER + " parameter");
+        Assert.notNull(keyExtractor, "Key extractor is required");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        entityManager = entityManagerFactory.createEntityManager(new HashMap<>());
+
+        String key = getExecutionContextKey(LAST_KEY);
+        lastKey = saveState && executionContext.containsKey(key)
+                ? executionContext.getLong(key) : startAfterKey;
+        fetchedKey = lastKey;
+        exhausted = false;
+        page.clear();
+        uncommittedChunks.clear();
+
+        if (prefetchPages > 0) {
+            startPrefetching();
+        }
+    }
+
+    @Override
+    public synchronized T read() throws InterruptedException {
+        if (page.isEmpty() && !exhausted) {
+            if (prefetched != null) {
+                takePrefetchedPage();
+            } else {
+                List<T> results = fetchPage();
+                page.addAll(results);
+                exhausted = results.size() < currentPageSize;
+            }
+        }
+        T item = page.poll();
+        if (item != null) {
+            lastKey = keyExtractor.apply(item);
+            uncommittedChunks.putIfAbsent(Thread.currentThread(), lastKey);
+        }
+        return item;
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        uncommittedChunks.remove(Thread.currentThread());
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(LAST_KEY), checkpoint());
+        }
+    }
+
+    /**
+     * 이 키까지는 모든 청크가 커밋되었다.
+     */
+    private long checkpoint() {
+        return uncommittedChunks.values().stream()
+                .mapToLong(firstKey -> firstKey - 1)
+                .min()
+                .orElse(lastKey);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        stopPrefetching();
+        if (entityManager != null) {
+            entityManager.close();
+            entityManager = null;
+        }
+    }
+
+    /**
+     * 마지막으로 읽은 페이지 다음 페이지를 읽는다.
+     */
+    @SuppressWarnings("unchecked")
+    private List<T> fetchPage() {
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+
+        currentPageSize = Math.max(1, pageSize.getAsInt());
+        Query query = entityManager.createQuery(queryString).setMaxResults(currentPageSize);
+        parameterValues.forEach(query::setParameter);
+        query.setParameter(LAST_KEY_PARAMETER, fetchedKey);
+        List<T> results = query.getResultList();
+
+        transaction.commit();
+        // 읽은 엔티티를 바로 분리(detach)해 Reader의 영속성 컨텍스트가 processor의 변경을 flush하지 않도록 한다.
+        entityManager.clear();
+
+        if (!results.isEmpty()) {
+            fetchedKey = keyExtractor.apply(results.get(results.size() - 1));
+        }
+        return results;
+    }
+
+    private void startPrefetching() {
+        prefetched = new ArrayBlockingQueue<>(prefetchPages);
+        prefetching = true;
+        prefetcherDone = new CountDownLatch(1);
+        TaskExecutor executor = prefetchExecutor;
+        if (executor == null) {
+            SimpleAsyncTaskExecutor threadPerReader = new SimpleAsyncTaskExecutor(
+                    getExecutionContextKey("prefetcher-"));
+            threadPerReader.setDaemon(true);
+            executor = threadPerReader;
+        }
+        CountDownLatch done = prefetcherDone;
+        executor.execute(() -> {
+            try {
+                // close()가 Task가 시작되기 전에 호출되었으면 읽지 않는다
+                if (prefetching) {
+                    prefetch();
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+    }
+
+    private void prefetch() {
+        try {
+            List<T> results;
+            do {
+                results = fetchPage();
+                if (!results.isEmpty()) {
+                    offer(results);
+                }
+            } while (prefetching && results.size() == currentPageSize);
+            offer(END_OF_DATA);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            try {
+                offer(e);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 큐에 자리가 날 때까지 기다린다. close()가 호출되면 더 기다리지 않고 끝낸다.
+     */
+    private void offer(Object element) throws InterruptedException {
+        while (prefetching) {
+            if (prefetched.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void takePrefetchedPage() throws InterruptedException {
+        Object element = prefetched.take();
+        if (element == END_OF_DATA) {
+            exhausted = true;
+        } else if (element instanceof RuntimeException e) {
+            exhausted = true;
+            throw e;
+        } else {
+            page.addAll((List<T>) element);
+        }
+    }
+
+    private void stopPrefetching() {
+        if (prefetcherDone == null) {
+            return;
+        }
+        // 풀의 스레드는 다른 Task가 이어서 쓰므로 인터럽트하지 않는다. 미리 읽기 Task는 지금 읽는 페이지를 끝내거나 offer()에서 기다리다 멈춘다.
+        prefetching = false;
+        try {
+            prefetcherDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        prefetcherDone = null;
+        prefetched = null;
+    }
+}
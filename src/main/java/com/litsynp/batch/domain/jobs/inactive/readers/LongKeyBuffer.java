@@ -0,0 +1,261 @@
+package com.litsynp.batch.domain.jobs.inactive.readers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * long 키를 추가한 순서대로 저장하는 버퍼. 키 하나에 8바이트만 사용한다.
+ * <p>
+ * spillThreshold 개까지는 long[]에 저장하고, 그보다 많아지면 임시 파일로 옮긴 뒤 파일을 SEGMENT_KEYS 개 단위로 메모리 매핑해 이어서 저장한다.
+ * 매핑한 영역은 OS 페이지 캐시가 관리하므로 키가 아무리 많아도 힙 사용량은 늘지 않는다.
+ * <p>
+ * 키를 인덱스 순서대로 받아 sort()로 정렬할 수 있다. (status, updated_date, idx) 인덱스에서 order by idx로 읽으면 DB가 대상 전체를 정렬하므로, 인덱스
+ * 순서로 읽어 여기서 정렬한다. 파일로 옮긴 뒤에는 매핑 단위마다 정렬하고 새 파일에 병합하므로 힙은 매핑 단위 하나(8MB)만 사용한다.
+ */
+public class LongKeyBuffer implements Closeable {
+
+    // 매핑 단위 (8MB)
+    private static final int SEGMENT_KEYS = 1 << 20;
+
+    private final int spillThreshold;
+    private final Path directory;
+
+    private long[] keys = new long[1024];
+    private long size;
+
+    private Path file;
+    private FileChannel channel;
+    private final List<LongBuffer> segments = new ArrayList<>();
+
+    public LongKeyBuffer(int spillThreshold, Path directory) {
+        this.spillThreshold = spillThreshold;
+        this.directory = directory;
+    }
+
+    public void add(long key) {
+        if (channel == null && size == keys.length) {
+            if (size >= spillThreshold) {
+                spill();
+            } else {
+                keys = Arrays.copyOf(keys, (int) Math.min((long) keys.length * 2,
+                        Math.max(spillThreshold, keys.length + 1)));
+            }
+        }
+        if (channel == null) {
+            keys[(int) size++] = key;
+        } else {
+            segment(size).put((int) (size++ % SEGMENT_KEYS), key);
+        }
+    }
+
+    public long get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        if (channel == null) {
+            return keys[(int) index];
+        }
+        return segments.get((int) (index / SEGMENT_KEYS)).get((int) (index % SEGMENT_KEYS));
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 오름차순으로 저장된 키에서 key보다 큰 첫 키의 위치를 찾는다.
+     */
+    public long indexAfter(long key) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (get(mid) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 키를 오름차순으로 정렬한다.
+     */
+    public void sort() {
+        if (channel == null) {
+            Arrays.sort(keys, 0, (int) size);
+            return;
+        }
+        int count = segmentCount();
+        long[] buffer = new long[SEGMENT_KEYS];
+        for (int i = 0; i < count; i++) {
+            LongBuffer segment = segments.get(i);
+            int length = segmentLength(i);
+            segment.get(0, buffer, 0, length);
+            Arrays.sort(buffer, 0, length);
+            segment.put(0, buffer, 0, length);
+        }
+        if (count > 1) {
+            merge(count);
+        }
+    }
+
+    /**
+     * 키를 개수가 같은 parts 개 구간으로 나눴을 때 각 구간의 마지막 키. 파티션 경계로 사용할 수 있다.
+     */
+    public long[] boundaries(int parts) {
+        int count = (int) Math.min(parts, size);
+        long[] boundaries = new long[count];
+        for (int i = 0; i < count; i++) {
+            boundaries[i] = get((i + 1) * size / count - 1);
+        }
+        return boundaries;
+    }
+
+    @Override
+    public void close() {
+        keys = null;
+        segments.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * 매핑 단위마다 정렬된 키를 새 파일에 병합하고 이전 파일을 지운다. 각 매핑 단위의 가장 작은 키를 힙에 두고 차례로 꺼낸다.
+     */
+    private void merge(int count) {
+        Path sortedFile = createFile();
+        FileChannel sortedChannel = open(sortedFile);
+        List<LongBuffer> sortedSegments = new ArrayList<>();
+
+        int[] positions = new int[count];
+        int[] heap = new int[count];
+        for (int i = 0; i < count; i++) {
+            heap[i] = i;
+        }
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(heap, count, i, positions);
+        }
+        int heapSize = count;
+        for (long i = 0; i < size; i++) {
+            int segment = heap[0];
+            map(sortedChannel, sortedSegments, i).put((int) (i % SEGMENT_KEYS),
+                    head(segment, positions));
+            if (++positions[segment] == segmentLength(segment)) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, positions);
+        }
+
+        Path previousFile = file;
+        FileChannel previousChannel = channel;
+        file = sortedFile;
+        channel = sortedChannel;
+        segments.clear();
+        segments.addAll(sortedSegments);
+        try {
+            previousChannel.close();
+            Files.deleteIfExists(previousFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize, int index, int[] positions) {
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < heapSize && head(heap[left], positions) < head(heap[smallest], positions)) {
+                smallest = left;
+            }
+            if (right < heapSize
+                    && head(heap[right], positions) < head(heap[smallest], positions)) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+            index = smallest;
+        }
+    }
+
+    private long head(int segment, int[] positions) {
+        return segments.get(segment).get(positions[segment]);
+    }
+
+    private int segmentCount() {
+        return (int) ((size + SEGMENT_KEYS - 1) / SEGMENT_KEYS);
+    }
+
+    private int segmentLength(int segment) {
+        return (int) Math.min(SEGMENT_KEYS, size - (long) segment * SEGMENT_KEYS);
+    }
+
+    private void spill() {
+        file = createFile();
+        channel = open(file);
+        for (long i = 0; i < size; i++) {
+            segment(i).put((int) (i % SEGMENT_KEYS), keys[(int) i]);
+        }
+        keys = null;
+    }
+
+    private Path createFile() {
+        try {
+            Path created = Files.createTempFile(directory, "inactive-keys-", ".bin");
+            created.toFile().deleteOnExit();
+            return created;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel open(Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LongBuffer segment(long index) {
+        return map(channel, segments, index);
+    }
+
+    private static LongBuffer map(FileChannel channel, List<LongBuffer> segments, long index) {
+        int segment = (int) (index / SEGMENT_KEYS);
+        while (segments.size() <= segment) {
+            try {
+                long offset = (long) segments.size() * SEGMENT_KEYS * Long.BYTES;
+                segments.add(channel.map(MapMode.READ_WRITE, offset,
+                        (long) SEGMENT_KEYS * Long.BYTES).asLongBuffer());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments.get(segment);
+    }
+}
@@ -0,0 +1,99 @@
+package com.litsynp.batch.domain.jobs.inactive.remote;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInterruptedException;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.AbstractPartitionHandler;
+
+/**
+ * 파티션을 메시지 브로커 없이 다른 JVM의 Worker에게 나눠 주는 PartitionHandler.
+ * <p>
+ * Partitioner가 만든 파티션 StepExecution을 batch_partition_request 테이블에 넣고, Worker(InactivePartitionWorker)가 실행한
+ * 결과를 공유 JobRepository에서 pollInterval마다 확인한다. 확인할 때마다 점유 기간이 지난 요청을 다시 대기 상태로 돌리므로 Worker가 죽어도 다른
+ * Worker가 그 파티션을 새 StepExecution으로 이어서 실행한다. 모든 요청이 DONE이 되면 파티션마다 가장 마지막 StepExecution을 결과로 반환한다.
+ */
+@Slf4j
+public class DatabasePartitionHandler extends AbstractPartitionHandler {
+
+    private final PartitionRequestRepository partitionRequestRepository;
+    private final JobExplorer jobExplorer;
+    private final Duration pollInterval;
+    private final Duration timeout;
+
+    /**
+     * @param timeout 모든 파티션이 끝나기를 기다리는 최대 시간. 0이면 제한하지 않는다.
+     */
+    public DatabasePartitionHandler(PartitionRequestRepository partitionRequestRepository,
+            JobExplorer jobExplorer, int gridSize, Duration pollInterval, Duration timeout) {
+        this.partitionRequestRepository = partitionRequestRepository;
+        this.jobExplorer = jobExplorer;
+        this.pollInterval = pollInterval;
+        this.timeout = timeout;
+        setGridSize(gridSize);
+    }
+
+    @Override
+    protected Set<StepExecution> doHandle(StepExecution managerStepExecution,
+            Set<StepExecution> partitionStepExecutions) throws Exception {
+        partitionRequestRepository.enqueue(partitionStepExecutions);
+        Set<Long> stepExecutionIds = partitionStepExecutions.stream()
+                .map(StepExecution::getId)
+                .collect(Collectors.toSet());
+        log.info("Queued {} partitions of {}", stepExecutionIds.size(),
+                managerStepExecution.getStepName());
+
+        long deadline = timeout.isZero() ? Long.MAX_VALUE
+                : System.nanoTime() + timeout.toNanos();
+        try {
+            while (true) {
+                int requeued = partitionRequestRepository.requeueExpired(LocalDateTime.now());
+                if (requeued > 0) {
+                    log.warn("Requeued {} partitions whose lease expired", requeued);
+                }
+
+                // Worker가 점유를 잃고 멈춘 파티션은 다시 대기 상태가 되므로, 모든 요청이 DONE이 된 뒤에 결과를 읽는다
+                if (partitionRequestRepository.countUnfinished(stepExecutionIds) == 0) {
+                    return refresh(managerStepExecution, partitionStepExecutions);
+                }
+                if (managerStepExecution.isTerminateOnly()) {
+                    throw new JobInterruptedException("Stopped while waiting for workers");
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Workers did not finish "
+                            + managerStepExecution.getStepName() + " within " + timeout);
+                }
+                Thread.sleep(pollInterval.toMillis());
+            }
+        } finally {
+            partitionRequestRepository.delete(stepExecutionIds);
+        }
+    }
+
+    /**
+     * 파티션마다 가장 마지막 StepExecution을 읽는다. 점유 기간이 지나 다른 Worker가 이어서 실행했으면 그 Worker가 만든 StepExecution이다.
+     */
+    private Set<StepExecution> refresh(StepExecution managerStepExecution,
+            Set<StepExecution> partitionStepExecutions) {
+        Set<String> stepNames = partitionStepExecutions.stream()
+                .map(StepExecution::getStepName)
+                .collect(Collectors.toSet());
+        JobExecution jobExecution = jobExplorer.getJobExecution(
+                managerStepExecution.getJobExecutionId());
+        Map<String, StepExecution> latest = jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepNames.contains(stepExecution.getStepName()))
+                .collect(Collectors.toMap(StepExecution::getStepName, Function.identity(),
+                        BinaryOperator.maxBy(Comparator.comparing(StepExecution::getId))));
+        return new HashSet<>(latest.values());
+    }
+}
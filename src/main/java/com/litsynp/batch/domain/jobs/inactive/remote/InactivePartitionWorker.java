@@ -0,0 +1,231 @@
+package com.litsynp.batch.domain.jobs.inactive.remote;
+
+import com.litsynp.batch.domain.jobs.inactive.remote.PartitionRequestRepository.PartitionRequest;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInterruptedException;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.StringUtils;
+
+/**
+ * batch_partition_request 테이블에서 파티션을 가져와 실행하는 Worker.
+ * <p>
+ * 가져간 파티션의 StepExecution을 공유 JobRepository에서 읽어 step.execute()로 실행하므로, 실행 결과는 Manager의
+ * DatabasePartitionHandler가 같은 JobRepository에서 확인한다. 실행하는 동안 점유 기간의 1/4마다 기간을 늘리고, 다른 Worker가 가져갔거나
+ * 점유 기간의 절반 동안 늘리지 못하면 다음 청크에서 멈춘다.
+ * <p>
+ * 점유 기간이 지나 넘어온 파티션은 이전 Worker의 StepExecution을 ABANDONED로 바꾸고 새 StepExecution으로 이어서 실행한다. 청크가 점유 기간보다
+ * 오래 걸려 이전 Worker가 아직 실행 중이어도 두 Worker가 같은 StepExecution을 갱신하지 않는다.
+ */
+@Slf4j
+public class InactivePartitionWorker implements SmartLifecycle {
+
+    private final PartitionRequestRepository partitionRequestRepository;
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+    private final Step step;
+    private final String workerId;
+    private final Duration leaseTimeout;
+    private final Duration pollInterval;
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "inactive-partition-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private volatile boolean running;
+    private Thread poller;
+
+    public InactivePartitionWorker(PartitionRequestRepository partitionRequestRepository,
+            JobExplorer jobExplorer, JobRepository jobRepository, Step step, String workerId,
+            Duration leaseTimeout, Duration pollInterval) {
+        this.partitionRequestRepository = partitionRequestRepository;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.step = step;
+        // 지정하지 않으면 pid@hostname
+        this.workerId = StringUtils.hasText(workerId) ? workerId
+                : ManagementFactory.getRuntimeMXBean().getName();
+        this.leaseTimeout = leaseTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        poller = new Thread(this::poll, "inactive-partition-worker");
+        poller.start();
+        log.info("Partition worker {} started", workerId);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.interrupt();
+            try {
+                poller.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        heartbeat.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                Optional<PartitionRequest> request = partitionRequestRepository.claim(workerId,
+                        leaseExpires());
+                if (request.isPresent()) {
+                    execute(request.get());
+                } else {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // DB 연결이 잠시 끊기는 등의 오류로 Worker가 멈추지 않도록 다음 주기에 다시 시도한다
+                log.error("Partition worker {} failed to poll", workerId, e);
+            }
+        }
+    }
+
+    private void execute(PartitionRequest request) {
+        JobExecution jobExecution = jobExplorer.getJobExecution(request.jobExecutionId());
+        StepExecution stepExecution = jobExecution == null ? null
+                : latestAttempt(jobExecution, request.stepName());
+        if (stepExecution == null || !needsRun(stepExecution)) {
+            // 이전 Worker가 실행을 마친 뒤 요청을 완료 처리하기 전에 죽었다면 다시 실행하지 않는다
+            partitionRequestRepository.complete(request, workerId);
+            return;
+        }
+        if (stepExecution.getStatus() != BatchStatus.STARTING) {
+            // 점유 기간이 지나 넘어온 파티션이다. 이전 Worker가 아직 살아 있어도 같은 StepExecution을 함께 갱신하지 않도록 새 StepExecution으로
+            // 마지막 체크포인트부터 이어서 실행한다
+            stepExecution = retry(stepExecution);
+        }
+
+        StepExecution running = stepExecution;
+        AtomicBoolean fenced = new AtomicBoolean();
+        AtomicLong renewedAt = new AtomicLong(System.nanoTime());
+        long renewEvery = Math.max(1, leaseTimeout.toMillis() / 4);
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(
+                () -> renew(request, running, renewedAt, fenced),
+                renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+
+        log.info("Partition worker {} executing {} ({})", workerId, request.stepName(),
+                running.getId());
+        try {
+            step.execute(running);
+        } catch (JobInterruptedException e) {
+            log.warn("{} was interrupted", request.stepName(), e);
+        } finally {
+            renewal.cancel(false);
+            if (fenced.get()) {
+                // 점유를 잃었으면 아무 것도 바뀌지 않고, 아직 점유하고 있으면 다른 Worker가 바로 이어서 실행하도록 내려놓는다
+                partitionRequestRepository.release(request, workerId);
+            } else {
+                partitionRequestRepository.complete(request, workerId);
+            }
+        }
+    }
+
+    /**
+     * 점유 기간을 늘린다. 다른 Worker가 가져갔거나, 점유 기간의 절반 동안 늘리지 못했으면 다른 Worker가 가져가기 전에 다음 청크에서 멈춘다.
+     */
+    private void renew(PartitionRequest request, StepExecution stepExecution,
+            AtomicLong renewedAt, AtomicBoolean fenced) {
+        try {
+            if (partitionRequestRepository.renew(request, workerId, leaseExpires())) {
+                renewedAt.set(System.nanoTime());
+                return;
+            }
+            log.warn("Lost lease on {}, stopping", request.stepName());
+        } catch (RuntimeException e) {
+            if (System.nanoTime() - renewedAt.get() < leaseTimeout.toNanos() / 2) {
+                log.warn("Could not renew lease on {}, retrying", request.stepName(), e);
+                return;
+            }
+            log.warn("Could not renew lease on {} for half the lease timeout, stopping",
+                    request.stepName(), e);
+        }
+        fenced.set(true);
+        stepExecution.setTerminateOnly();
+    }
+
+    /**
+     * 아직 시작하지 않았거나, 이전 Worker가 끝내지 못한 파티션이면 실행한다. Job을 멈추는 중이면 이전 Worker가 멈춘 파티션을 다시 실행하지 않는다.
+     */
+    private boolean needsRun(StepExecution stepExecution) {
+        BatchStatus status = stepExecution.getStatus();
+        if (status == BatchStatus.STARTING) {
+            return true;
+        }
+        boolean unfinished = status.isRunning() || status == BatchStatus.STOPPED;
+        return unfinished && stepExecution.getJobExecution().getStatus() != BatchStatus.STOPPING;
+    }
+
+    /**
+     * 이전 Worker의 StepExecution을 ABANDONED로 바꾸고, 그 ExecutionContext(구간과 체크포인트)를 복사한 새 StepExecution을 만든다.
+     * <p>
+     * ABANDONED로 바꾸면 StepExecution의 version이 올라가므로, 아직 살아 있는 이전 Worker가 청크를 커밋하면서 갱신하면
+     * OptimisticLockingFailureException으로 그 청크가 롤백된다. 이전 Worker는 더 이상 이 파티션의 결과를 바꾸지 못한다.
+     */
+    private StepExecution retry(StepExecution previous) {
+        if (previous.getStatus().isRunning()) {
+            previous.setStatus(BatchStatus.ABANDONED);
+            previous.setEndTime(new Date());
+            try {
+                jobRepository.update(previous);
+            } catch (OptimisticLockingFailureException e) {
+                // 그 사이 이전 Worker가 갱신했어도 새 StepExecution에는 영향이 없다
+                log.warn("Could not abandon {} ({})", previous.getStepName(), previous.getId(), e);
+            }
+        }
+        StepExecution retry = previous.getJobExecution()
+                .createStepExecution(previous.getStepName());
+        retry.setExecutionContext(new ExecutionContext(previous.getExecutionContext()));
+        jobRepository.add(retry);
+        log.info("Retrying {} ({}) as {}", previous.getStepName(), previous.getId(),
+                retry.getId());
+        return retry;
+    }
+
+    private static StepExecution latestAttempt(JobExecution jobExecution, String stepName) {
+        return jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().equals(stepName))
+                .max(Comparator.comparing(StepExecution::getId))
+                .orElse(null);
+    }
+
+    private LocalDateTime leaseExpires() {
+        return LocalDateTime.now().plus(leaseTimeout);
+    }
+}
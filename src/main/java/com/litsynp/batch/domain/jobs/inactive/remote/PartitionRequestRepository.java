@@ -0,0 +1,150 @@
+package com.litsynp.batch.domain.jobs.inactive.remote;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * 원격 파티션 요청 테이블(batch_partition_request)을 다룬다.
+ * <p>
+ * 요청 하나는 파티션 하나이며 QUEUED -> CLAIMED -> DONE 순서로 바뀐다. 요청은 Manager가 만든 첫 StepExecution의 id로 찾고, 점유 기간이 지나
+ * 다른 Worker가 이어서 실행한 StepExecution은 같은 Step 이름으로 찾는다. 파티션의 ExecutionContext(minIdx, maxIdx)는
+ * Manager가 StepExecution을 만들 때 JobRepository에 저장되므로, 요청에는 StepExecution의 id만 남긴다. Worker는 조건부 update로
+ * 요청을 가져가므로 같은 요청을 두 Worker가 동시에 가져갈 수 없다.
+ * <p>
+ * 요청 테이블은 db/migration의 V5__create_batch_partition_request.sql로 만든다.
+ */
+public class PartitionRequestRepository {
+
+    static final String QUEUED = "QUEUED";
+    static final String CLAIMED = "CLAIMED";
+    static final String DONE = "DONE";
+
+    private static final String INSERT_SQL = "insert into batch_partition_request" +
+            " (step_execution_id, job_execution_id, step_name, status)" +
+            " values (:stepExecutionId, :jobExecutionId, :stepName, '" + QUEUED + "')";
+    private static final String FIND_QUEUED_SQL = "select step_execution_id" +
+            " from batch_partition_request where status = '" + QUEUED + "'" +
+            " order by step_execution_id limit :limit";
+    private static final String CLAIM_SQL = "update batch_partition_request" +
+            " set status = '" + CLAIMED + "', worker_id = :workerId, lease_expires = :leaseExpires" +
+            " where step_execution_id = :stepExecutionId and status = '" + QUEUED + "'";
+    private static final String FIND_SQL = "select step_execution_id, job_execution_id, step_name" +
+            " from batch_partition_request where step_execution_id = :stepExecutionId";
+    private static final String RENEW_SQL = "update batch_partition_request" +
+            " set lease_expires = :leaseExpires" +
+            " where step_execution_id = :stepExecutionId and worker_id = :workerId" +
+            " and status = '" + CLAIMED + "'";
+    private static final String COMPLETE_SQL = "update batch_partition_request" +
+            " set status = '" + DONE + "', lease_expires = null" +
+            " where step_execution_id = :stepExecutionId and worker_id = :workerId";
+    private static final String RELEASE_SQL = "update batch_partition_request" +
+            " set status = '" + QUEUED + "', worker_id = null, lease_expires = null" +
+            " where step_execution_id = :stepExecutionId and worker_id = :workerId" +
+            " and status = '" + CLAIMED + "'";
+    private static final String COUNT_UNFINISHED_SQL = "select count(*)" +
+            " from batch_partition_request" +
+            " where step_execution_id in (:stepExecutionIds) and status <> '" + DONE + "'";
+    private static final String REQUEUE_EXPIRED_SQL = "update batch_partition_request" +
+            " set status = '" + QUEUED + "', worker_id = null, lease_expires = null" +
+            " where status = '" + CLAIMED + "' and lease_expires < :now";
+    private static final String DELETE_SQL = "delete from batch_partition_request" +
+            " where step_execution_id in (:stepExecutionIds)";
+
+    // 한 번에 가져갈 후보 수. 다른 Worker가 먼저 가져간 요청은 건너뛴다.
+    private static final int CLAIM_CANDIDATES = 10;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public PartitionRequestRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void enqueue(Collection<StepExecution> stepExecutions) {
+        MapSqlParameterSource[] batch = stepExecutions.stream()
+                .map(stepExecution -> new MapSqlParameterSource()
+                        .addValue("stepExecutionId", stepExecution.getId())
+                        .addValue("jobExecutionId", stepExecution.getJobExecutionId())
+                        .addValue("stepName", stepExecution.getStepName()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+    }
+
+    /**
+     * 대기 중인 요청 하나를 가져가고 leaseExpires까지 점유한다. 가져갈 요청이 없으면 비어 있다.
+     */
+    public Optional<PartitionRequest> claim(String workerId, LocalDateTime leaseExpires) {
+        List<Long> candidates = jdbcTemplate.queryForList(FIND_QUEUED_SQL,
+                new MapSqlParameterSource("limit", CLAIM_CANDIDATES), Long.class);
+        for (Long stepExecutionId : candidates) {
+            int claimed = jdbcTemplate.update(CLAIM_SQL, new MapSqlParameterSource()
+                    .addValue("workerId", workerId)
+                    .addValue("leaseExpires", leaseExpires)
+                    .addValue("stepExecutionId", stepExecutionId));
+            if (claimed == 1) {
+                return Optional.of(jdbcTemplate.queryForObject(FIND_SQL,
+                        new MapSqlParameterSource("stepExecutionId", stepExecutionId),
+                        (rs, rowNum) -> new PartitionRequest(rs.getLong("step_execution_id"),
+                                rs.getLong("job_execution_id"), rs.getString("step_name"))));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 점유 기간을 늘린다. 그 사이 점유를 잃었으면(기간이 지나 다른 Worker가 가져갔으면) false를 반환한다.
+     */
+    public boolean renew(PartitionRequest request, String workerId, LocalDateTime leaseExpires) {
+        return jdbcTemplate.update(RENEW_SQL, new MapSqlParameterSource()
+                .addValue("leaseExpires", leaseExpires)
+                .addValue("stepExecutionId", request.stepExecutionId())
+                .addValue("workerId", workerId)) == 1;
+    }
+
+    public void complete(PartitionRequest request, String workerId) {
+        jdbcTemplate.update(COMPLETE_SQL, new MapSqlParameterSource()
+                .addValue("stepExecutionId", request.stepExecutionId())
+                .addValue("workerId", workerId));
+    }
+
+    /**
+     * 아직 점유하고 있는 요청을 끝내지 못하고 내려놓아, 다른 Worker가 바로 가져갈 수 있게 한다.
+     */
+    public void release(PartitionRequest request, String workerId) {
+        jdbcTemplate.update(RELEASE_SQL, new MapSqlParameterSource()
+                .addValue("stepExecutionId", request.stepExecutionId())
+                .addValue("workerId", workerId));
+    }
+
+    /**
+     * 아직 DONE이 아닌(대기 중이거나 Worker가 실행 중인) 요청 수
+     */
+    public int countUnfinished(Collection<Long> stepExecutionIds) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_UNFINISHED_SQL,
+                new MapSqlParameterSource("stepExecutionIds", stepExecutionIds), Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 점유 기간이 지난 요청을 다시 대기 상태로 돌린다. 죽은 Worker가 가져간 파티션은 이렇게 다른 Worker에게 넘어간다.
+     */
+    public int requeueExpired(LocalDateTime now) {
+        return jdbcTemplate.update(REQUEUE_EXPIRED_SQL, new MapSqlParameterSource("now", now));
+    }
+
+    public void delete(Collection<Long> stepExecutionIds) {
+        if (stepExecutionIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(DELETE_SQL,
+                new MapSqlParameterSource("stepExecutionIds", stepExecutionIds));
+    }
+
+    public record PartitionRequest(long stepExecutionId, long jobExecutionId, String stepName) {
+
+    }
+}
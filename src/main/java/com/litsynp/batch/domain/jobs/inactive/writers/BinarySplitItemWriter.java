@@ -0,0 +1,151 @@
+package com.litsynp.batch.domain.jobs.inactive.writers;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 쓰기에 실패한 청크를 반으로 나눠 가며 실패한 아이템만 골라내는 ItemWriter.
+ * <p>
+ * faultTolerant().skip()은 청크 쓰기가 실패하면 아이템마다 트랜잭션을 하나씩 열어 다시 쓰므로(scan) 청크가 클수록 느려진다. 이 Writer는 청크
+ * 트랜잭션의 커넥션에 savepoint를 만들고 쓴 다음, 실패하면 savepoint로 되돌리고 청크를 반씩 나눠 다시 쓴다. 아이템 하나만 남았는데도 실패하면 그 키를
+ * batch_inactive_skip 테이블에 남기고 건너뛴다. 실패한 아이템이 k개면 추가로 쓰는 횟수는 아이템 수가 아니라 k * log(청크 크기)에 비례하고, 모두 같은 청크
+ * 트랜잭션 안에서 실행된다.
+ * <p>
+ * 데드락처럼 다시 시도하면 성공할 수 있는 오류(TransientDataAccessException)는 DB가 트랜잭션 전체를 롤백하므로 나누지 않고 그대로 던진다. 이 오류는
+ * Step의 retry 설정으로 청크를 다시 실행한다.
+ * <p>
+ * 건너뛴 아이템 수는 afterStep에서 writeCount에서 빼고 writeSkipCount에 더한다. 청크가 롤백되면(재시도 포함) batch_inactive_skip에 남긴 행도
+ * 함께 사라지므로, 청크 트랜잭션이 커밋된 뒤에만 그 청크에서 건너뛴 수를 더한다. batch_inactive_skip은 db/migration의
+ * V4__create_batch_inactive_skip.sql로 만든다.
+ */
+@Slf4j
+public class BinarySplitItemWriter<T> implements ItemWriter<T>, StepExecutionListener {
+
+    private static final String INSERT_SKIP_SQL = "insert into batch_inactive_skip" +
+            " (step_execution_id, idx, reason, skipped_date)" +
+            " values (:stepExecutionId, :idx, :reason, :skippedDate)";
+    private static final int MAX_REASON_LENGTH = 255;
+
+    private final ItemWriter<T> delegate;
+    private final Function<? super T, Long> keyExtractor;
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AtomicLong skipCount = new AtomicLong();
+    private Long stepExecutionId;
+
+    public BinarySplitItemWriter(ItemWriter<T> delegate, Function<? super T, Long> keyExtractor,
+            NamedParameterJdbcTemplate jdbcTemplate) {
+        this.delegate = delegate;
+        this.keyExtractor = keyExtractor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = jdbcTemplate.getJdbcTemplate().getDataSource();
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+        int skipped = writeOrSplit(items);
+        if (skipped > 0) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            skipCount.addAndGet(skipped);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 청크를 쓰고 건너뛴 아이템 수를 반환한다.
+     */
+    private int writeOrSplit(List<? extends T> items) throws Exception {
+        // 청크 트랜잭션에 묶인 커넥션
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                delegate.write(items);
+                releaseQuietly(connection, savepoint);
+                return 0;
+            } catch (TransientDataAccessException e) {
+                throw e;
+            } catch (Exception e) {
+                connection.rollback(savepoint);
+                if (items.size() == 1) {
+                    skip(items.get(0), e);
+                    return 1;
+                }
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        int half = items.size() / 2;
+        return writeOrSplit(items.subList(0, half))
+                + writeOrSplit(items.subList(half, items.size()));
+    }
+
+    private void skip(T item, Exception e) {
+        Long idx = keyExtractor.apply(item);
+        log.warn("Skipping {} after write failure: {}", idx, e.getMessage());
+        String reason = String.valueOf(e.getMessage());
+        jdbcTemplate.update(INSERT_SKIP_SQL, new MapSqlParameterSource()
+                .addValue("stepExecutionId", stepExecutionId)
+                .addValue("idx", idx)
+                .addValue("reason", reason.substring(0, Math.min(reason.length(),
+                        MAX_REASON_LENGTH)))
+                .addValue("skippedDate", LocalDateTime.now()));
+    }
+
+    private static void releaseQuietly(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // 일부 드라이버는 savepoint 해제를 지원하지 않는다. 커밋하면 함께 해제된다.
+            log.debug("Could not release savepoint", e);
+        }
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        stepExecutionId = stepExecution.getId();
+        skipCount.set(0);
+        if (delegate instanceof StepExecutionListener listener) {
+            listener.beforeStep(stepExecution);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        int skipped = (int) skipCount.get();
+        if (skipped > 0) {
+            log.warn("{} items were skipped, see batch_inactive_skip", skipped);
+            stepExecution.setWriteCount(stepExecution.getWriteCount() - skipped);
+            stepExecution.setWriteSkipCount(stepExecution.getWriteSkipCount() + skipped);
+        }
+        if (delegate instanceof StepExecutionListener listener) {
+            return listener.afterStep(stepExecution);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.litsynp.batch.domain.jobs.inactive.writers;
+
+import com.litsynp.batch.domain.enums.UserStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * 청크 단위로 회원 상태를 한 번에 휴면으로 변경하는 ItemWriter.
+ * <p>
+ * JpaItemWriter는 엔티티마다 merge()를 호출하고, Hibernate는 status 하나를 바꾸기 위해 password, email 등 모든 컬럼을 update한다.
+ * 이 Writer는 청크당 update 문 하나만 실행한다. 다른 곳에서 먼저 상태가 바뀐 회원은 status = 'ACTIVE' 조건으로 걸러진다. 아이템에서는
+ * keyExtractor로 idx만 꺼내므로 엔티티가 아닌 InactiveUserRow 같은 프로젝션도 쓸 수 있다.
+ * <p>
+ * ItemWriter는 StepContribution에 접근할 수 없기 때문에, 실제로 변경되지 않은 행 수를 모아 두었다가 afterStep에서 writeCount에서 빼고
+ * filterCount에 더한다.
+ */
+@Slf4j
+public class InactiveUserJdbcItemWriter<T> implements ItemWriter<T>, StepExecutionListener {
+
+    private static final String UPDATE_SQL = "update member" +
+            " set status = :inactive, updated_date = :updatedDate" +
+            " where idx in (:idxs) and status = :active";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Function<? super T, Long> keyExtractor;
+    private final AtomicLong notUpdatedCount = new AtomicLong();
+
+    public InactiveUserJdbcItemWriter(NamedParameterJdbcTemplate jdbcTemplate,
+            Function<? super T, Long> keyExtractor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public void write(List<? extends T> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        List<Long> idxs = users.stream()
+                .map(keyExtractor)
+                .toList();
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("inactive", UserStatus.INACTIVE.name())
+                .addValue("active", UserStatus.ACTIVE.name())
+                .addValue("updatedDate", LocalDateTime.now())
+                .addValue("idxs", idxs);
+        int updated = jdbcTemplate.update(UPDATE_SQL, parameters);
+
+        notUpdatedCount.addAndGet(idxs.size() - updated);
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        notUpdatedCount.set(0);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        int notUpdated = (int) notUpdatedCount.get();
+        if (notUpdated > 0) {
+            log.info("{} users were already changed by someone else, excluded from write count",
+                    notUpdated);
+            stepExecution.setWriteCount(stepExecution.getWriteCount() - notUpdated);
+            stepExecution.setFilterCount(stepExecution.getFilterCount() + notUpdated);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.litsynp.batch.domain.jobs.inactive.writers;
+
+import com.litsynp.batch.domain.enums.UserStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+/**
+ * 청크 단위로 회원 상태를 JPQL 벌크 update 한 번으로 휴면으로 변경하는 ItemWriter.
+ * <p>
+ * JpaItemWriter는 관리되는 엔티티를 merge하므로 엔티티를 읽지 않는 프로젝션(InactiveUserRow)과는 함께 쓸 수 없다. 이 Writer는 청크 트랜잭션에
+ * 묶인 EntityManager로 update User ... where idx in :idxs를 실행하므로 엔티티를 만들거나 영속성 컨텍스트에 올리지 않는다.
+ */
+public class InactiveUserJpqlItemWriter<T> implements ItemWriter<T> {
+
+    private static final String UPDATE_JPQL = "update User u" +
+            " set u.status = :inactive, u.updatedDate = :updatedDate" +
+            " where u.idx in :idxs and u.status = :active";
+
+    private final EntityManager entityManager;
+    private final Function<? super T, Long> keyExtractor;
+
+    public InactiveUserJpqlItemWriter(EntityManagerFactory entityManagerFactory,
+            Function<? super T, Long> keyExtractor) {
+        // 현재 트랜잭션의 EntityManager를 사용하는 프록시
+        this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                entityManagerFactory);
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public void write(List<? extends T> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> idxs = items.stream()
+                .map(keyExtractor)
+                .toList();
+        entityManager.createQuery(UPDATE_JPQL)
+                .setParameter("inactive", UserStatus.INACTIVE)
+                .setParameter("active", UserStatus.ACTIVE)
+                .setParameter("updatedDate", LocalDateTime.now())
+                .setParameter("idxs", idxs)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,227 @@
+package com.litsynp.batch.domain.jobs.inactive.writers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.file.transform.LineAggregator;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 아이템을 한 줄씩 gzip으로 압축해 파일 끝에 이어 쓰는 ItemWriter. 파일이 maxFileBytes를 넘으면 다음 번호의 파일로 넘어간다.
+ * <p>
+ * FlatFileItemWriter는 줄마다 Writer에 쓰고 청크마다 flush한다. 이 Writer는 청크 전체를 메모리에서 gzip 멤버 하나로 압축한 다음
+ * FileChannel.write() 한 번으로 파일 끝에 붙인다. gzip은 멤버를 이어 붙인 파일도 하나의 gzip 파일로 읽으므로(zcat, GZIPInputStream) 파일을
+ * 다시 압축할 필요가 없고, 메모리는 청크 하나만큼만 사용한다.
+ * <p>
+ * update()에서 파일을 디스크에 쓰고(force) 현재 파일 번호와 오프셋을 ExecutionContext에 저장한다. 재시작하면 그 파일을 저장된 오프셋으로 잘라
+ * 커밋되지 않은 청크를 지우고, 그 뒤에 만들어진 파일도 지운 다음 이어서 쓴다. 체크포인트가 없는데 이미 내용이 있는 파일이 있으면 다른 실행의 파일로
+ * 보고 자르지 않고 실패한다.
+ * <p>
+ * 스레드 안전하지 않으므로 단일 스레드 Step에서 사용한다.
+ */
+@Slf4j
+public class RollingGzipFileItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T>,
+        InitializingBean {
+
+    private static final String FILE_INDEX = "file.index";
+    private static final String FILE_OFFSET = "file.offset";
+
+    private Path directory;
+    private String filePrefix;
+    private String fileSuffix = ".ndjson.gz";
+    private LineAggregator<T> lineAggregator;
+    private long maxFileBytes = 64L * 1024 * 1024;
+    private boolean saveState = true;
+
+    private final ChunkBuffer chunk = new ChunkBuffer();
+    private FileChannel channel;
+    private int fileIndex;
+    private long offset;
+
+    public RollingGzipFileItemWriter() {
+        setName(ClassUtils.getShortName(RollingGzipFileItemWriter.class));
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 파일 이름은 filePrefix-00000 + fileSuffix 형식이다.
+     */
+    public void setFilePrefix(String filePrefix) {
+        this.filePrefix = filePrefix;
+    }
+
+    public void setFileSuffix(String fileSuffix) {
+        this.fileSuffix = fileSuffix;
+    }
+
+    public void setLineAggregator(LineAggregator<T> lineAggregator) {
+        this.lineAggregator = lineAggregator;
+    }
+
+    /**
+     * 압축된 파일이 이 크기를 넘으면 다음 청크부터 새 파일에 쓴다.
+     */
+    public void setMaxFileBytes(long maxFileBytes) {
+        Assert.isTrue(maxFileBytes > 0, "Max file bytes must be greater than zero");
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(directory, "Directory is required");
+        Assert.hasText(filePrefix, "File prefix is required");
+        Assert.notNull(lineAggregator, "Line aggregator is required");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        String indexKey = getExecutionContextKey(FILE_INDEX);
+        boolean restart = saveState && executionContext.containsKey(indexKey);
+        fileIndex = restart ? executionContext.getInt(indexKey) : 0;
+        offset = restart ? executionContext.getLong(getExecutionContextKey(FILE_OFFSET)) : 0;
+        try {
+            Files.createDirectories(directory);
+            if (!restart && hasContent()) {
+                // 체크포인트 없이 이미 내용이 있는 파일을 자르면 다른 실행이 내보낸 파일을 지우게 된다
+                throw new ItemStreamException("File " + file(0)
+                        + " already has content but there is no checkpoint to resume from");
+            }
+            // 저장된 위치보다 뒤에 쓴 파일은 커밋되지 않은 청크다
+            deleteFilesAfter(fileIndex);
+            openChannel();
+            if (channel.size() < offset) {
+                throw new ItemStreamException("File " + file(fileIndex) + " is shorter ("
+                        + channel.size() + " bytes) than the checkpoint (" + offset + " bytes)");
+            }
+            channel.truncate(offset);
+            channel.position(offset);
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not open " + file(fileIndex), e);
+        }
+        if (restart) {
+            log.info("Resuming {} at offset {}", file(fileIndex), offset);
+        }
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws IOException {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (offset >= maxFileBytes) {
+            roll();
+        }
+
+        chunk.reset();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(chunk, 64 * 1024),
+                StandardCharsets.UTF_8)) {
+            for (T item : items) {
+                writer.write(lineAggregator.aggregate(item));
+                writer.write('\n');
+            }
+        }
+
+        ByteBuffer buffer = chunk.asByteBuffer();
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (!saveState || channel == null) {
+            return;
+        }
+        try {
+            // 체크포인트가 커밋되기 전에 그 위치까지의 내용이 디스크에 있어야 재시작할 때 자를 수 있다
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not flush " + file(fileIndex), e);
+        }
+        executionContext.putInt(getExecutionContextKey(FILE_INDEX), fileIndex);
+        executionContext.putLong(getExecutionContextKey(FILE_OFFSET), offset);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        if (channel != null) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Could not close " + file(fileIndex), e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.force(false);
+        channel.close();
+        fileIndex++;
+        offset = 0;
+        openChannel();
+        channel.truncate(0);
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(file(fileIndex), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+    }
+
+    private boolean hasContent() throws IOException {
+        Path first = file(0);
+        return Files.exists(first) && Files.size(first) > 0 || Files.exists(file(1));
+    }
+
+    private void deleteFilesAfter(int index) throws IOException {
+        for (int i = index + 1; Files.deleteIfExists(file(i)); i++) {
+            log.info("Deleted uncommitted {}", file(i));
+        }
+    }
+
+    private Path file(int index) {
+        return directory.resolve(String.format("%s-%05d%s", filePrefix, index, fileSuffix));
+    }
+
+    /**
+     * 압축한 청크를 복사하지 않고 ByteBuffer로 감싸기 위해 내부 배열을 노출한다.
+     */
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+
+        ChunkBuffer() {
+            super(256 * 1024);
+        }
+
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.litsynp.batch.support;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * 실행을 기다리는 Task 수를 executor.waiting 게이지로 기록하는 TaskExecutor.
+ * <p>
+ * execute()를 호출한 시점부터 Task가 실제로 시작될 때까지를 대기로 센다. 큐에서 기다리는 Task와, 동시 실행 수 제한 때문에 execute()에서 멈춰 있는
+ * 호출 스레드가 모두 포함된다.
+ */
+public class InstrumentedTaskExecutor implements TaskExecutor, InitializingBean, DisposableBean {
+
+    private final TaskExecutor delegate;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public InstrumentedTaskExecutor(TaskExecutor delegate, String name,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        Gauge.builder("executor.waiting", waiting, AtomicInteger::get)
+                .description("Tasks submitted but not yet started")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        waiting.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                waiting.decrementAndGet();
+                task.run();
+            });
+        } catch (RuntimeException e) {
+            waiting.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (delegate instanceof InitializingBean initializingBean) {
+            initializingBean.afterPropertiesSet();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean disposableBean) {
+            disposableBean.destroy();
+        }
+    }
+}
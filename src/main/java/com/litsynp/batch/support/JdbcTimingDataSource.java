@@ -0,0 +1,119 @@
+package com.litsynp.batch.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Statement의 execute 계열 메서드가 걸린 시간을 재는 DataSource.
+ * <p>
+ * 전체 시간은 jdbc.statement.time Timer에 기록하고, 스레드별 누적 시간은 threadNanos()로 조회할 수 있다. 청크 리스너는 청크 전후의 차이로 청크
+ * 하나에서 DB가 차지한 시간과 Java 코드가 차지한 시간을 나눈다.
+ */
+public class JdbcTimingDataSource extends DelegatingDataSource {
+
+    public static final String TIMER_NAME = "jdbc.statement.time";
+    private static final ThreadLocal<long[]> THREAD_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private volatile Timer timer;
+
+    public JdbcTimingDataSource(DataSource targetDataSource, Supplier<MeterRegistry> meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 현재 스레드가 지금까지 Statement 실행에 쓴 시간(나노초)
+     */
+    public static long threadNanos() {
+        return THREAD_NANOS.get()[0];
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection(), this::wrapStatement);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password),
+                this::wrapStatement);
+    }
+
+    private Object wrapStatement(Method method, Object result) {
+        if (result instanceof CallableStatement callableStatement) {
+            return proxy(CallableStatement.class, callableStatement, null);
+        }
+        if (result instanceof PreparedStatement preparedStatement) {
+            return proxy(PreparedStatement.class, preparedStatement, null);
+        }
+        if (result instanceof Statement statement) {
+            return proxy(Statement.class, statement, null);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, T target, ResultWrapper resultWrapper) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            boolean timed = resultWrapper == null && method.getName().startsWith("execute");
+            long startedAt = timed ? System.nanoTime() : 0;
+            try {
+                Object result = method.invoke(target, args);
+                return resultWrapper == null ? result : resultWrapper.wrap(method, result);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                if (timed) {
+                    record(System.nanoTime() - startedAt);
+                }
+            }
+        };
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                handler);
+    }
+
+    private void record(long nanos) {
+        THREAD_NANOS.get()[0] += nanos;
+        Timer current = timer;
+        if (current == null) {
+            current = Timer.builder(TIMER_NAME)
+                    .description("Time spent executing JDBC statements")
+                    .register(meterRegistry.get());
+            timer = current;
+        }
+        current.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @FunctionalInterface
+    private interface ResultWrapper {
+
+        Object wrap(Method method, Object result);
+    }
+}
@@ -0,0 +1,55 @@
+package com.litsynp.batch.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * EXPLAIN으로 쿼리가 테이블 전체를 읽는지 확인한다.
+ * <p>
+ * H2는 실행 계획 한 줄(PLAN)에 사용하는 인덱스를 적고, 인덱스 없이 읽으면 tableScan으로 표시한다. MySQL은 테이블마다 한 행을 반환하고 전체를 읽으면
+ * type이 ALL이다. 기본 키만으로 읽는 계획도 idx 순서로 테이블을 훑으며 조건을 거르는 것이므로 전체를 읽는 것으로 본다.
+ */
+public class QueryPlanVerifier {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QueryPlanVerifier(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 이름과 SQL 쌍을 받아 테이블 전체를 읽는 쿼리가 하나라도 있으면 실행 계획과 함께 IllegalStateException을 던진다.
+     */
+    public void verify(Map<String, String> queries) {
+        List<String> violations = new ArrayList<>();
+        queries.forEach((name, sql) -> {
+            List<Map<String, Object>> plan = explain(sql);
+            if (plan.stream().anyMatch(QueryPlanVerifier::isFullScan)) {
+                violations.add(name + ": " + plan);
+            }
+        });
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException("Queries without a candidate index: " + violations);
+        }
+    }
+
+    public List<Map<String, Object>> explain(String sql) {
+        return jdbcTemplate.queryForList("explain " + sql);
+    }
+
+    private static boolean isFullScan(Map<String, Object> row) {
+        // queryForList는 컬럼 이름의 대소문자를 구분하지 않는 Map을 반환한다
+        Object plan = row.get("PLAN");
+        if (plan != null) {
+            // H2는 기본 키 순서로 읽으면 /* PUBLIC.PRIMARY_KEY_8: IDX > 0 */처럼 기본 키 인덱스를 적는다
+            String text = plan.toString();
+            return text.contains(".tableScan") || text.contains(".PRIMARY_KEY_");
+        }
+        String type = String.valueOf(row.get("type"));
+        // 인덱스 전체를 읽거나(index), 조건 컬럼의 인덱스 대신 기본 키 범위를 읽으면(PRIMARY) 대상이 아닌 행까지 모두 읽는다
+        return "ALL".equalsIgnoreCase(type) || "index".equalsIgnoreCase(type)
+                || "PRIMARY".equalsIgnoreCase(String.valueOf(row.get("key")));
+    }
+}
@@ -0,0 +1,62 @@
+package com.litsynp.batch.support;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JVM이 시작한 뒤 첫 청크가 끝날 때까지 걸린 시간과 그때의 RSS(프로세스가 실제로 점유한 메모리)를 기록한다.
+ * <p>
+ * 짧은 실행에서는 컨텍스트 시작 시간이 처리 시간만큼 걸리므로, 시작 방식(fast-start 프로필, CDS 아카이브)을 바꿨을 때의 효과를 이 두 값으로 비교한다.
+ * JVM마다 한 번만 기록하며, StartupBenchmark가 읽을 수 있도록 "startup: timeToFirstChunkMs=... rssKb=..." 형식의 로그를 남긴다.
+ */
+@Slf4j
+public final class StartupMetrics {
+
+    public static final String TIME_TO_FIRST_CHUNK = "batch.startup.time.to.first.chunk";
+    public static final String RSS_AT_FIRST_CHUNK = "batch.startup.rss.at.first.chunk";
+    public static final String LOG_PATTERN = "startup: timeToFirstChunkMs=(\\d+) rssKb=(-?\\d+)";
+
+    private static final AtomicBoolean RECORDED = new AtomicBoolean();
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+
+    private StartupMetrics() {
+    }
+
+    public static void recordFirstChunk(MeterRegistry meterRegistry) {
+        if (!RECORDED.compareAndSet(false, true)) {
+            return;
+        }
+        long timeToFirstChunkMs = System.currentTimeMillis()
+                - ManagementFactory.getRuntimeMXBean().getStartTime();
+        long rssKb = rssKb();
+        Gauge.builder(TIME_TO_FIRST_CHUNK, () -> timeToFirstChunkMs)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder(RSS_AT_FIRST_CHUNK, () -> rssKb)
+                .baseUnit("kilobytes")
+                .register(meterRegistry);
+        log.info("startup: timeToFirstChunkMs={} rssKb={}", timeToFirstChunkMs, rssKb);
+    }
+
+    /**
+     * /proc/self/status의 VmRSS. 리눅스가 아니면 -1
+     */
+    static long rssKb() {
+        try {
+            return Files.readAllLines(PROC_STATUS).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> line.replaceAll("\\D", ""))
+                    .mapToLong(Long::parseLong)
+                    .findFirst()
+                    .orElse(-1L);
+        } catch (IOException | UnsupportedOperationException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.litsynp.batch.support;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.lang.Nullable;
+
+/**
+ * 실행 중인 Step의 진행 상황을 청크마다가 아니라 flushEveryChunks 청크마다, 또는 flushInterval마다 한 번씩만 저장하는 JobRepository.
+ * <p>
+ * TaskletStep은 청크를 커밋할 때마다 같은 트랜잭션에서 updateExecutionContext(StepExecution)로 BATCH_STEP_EXECUTION_CONTEXT를,
+ * update(StepExecution)로 BATCH_STEP_EXECUTION을 갱신한다. 청크가 작으면 커밋 시간의 상당 부분이 이 두 쓰기에 든다. 이 Repository는
+ * 청크마다 updateExecutionContext에서 저장할지 정하고, 같은 청크의 update도 그 결정을 따른다. 저장하지 않은 청크는 DB의 버전이 그대로이므로
+ * 다음에 저장할 때 낙관적 잠금이 어긋나지 않는다.
+ * <p>
+ * 중지 요청(JobOperator.stop)은 SimpleJobRepository가 update(StepExecution)에서 Job 실행의 상태를 다시 읽어 확인하므로, 저장하지 않는
+ * 청크에서는 BATCH_JOB_EXECUTION의 STATUS 한 컬럼만 기본 키로 읽어 직접 확인한다. 중지 중이면 StepExecution을 terminateOnly로 표시해 Step이
+ * 바로 다음 청크 전에 멈추고, 그 뒤의 저장은 모두 위임한다.
+ * <p>
+ * Step이 시작할 때와 끝날 때(COMPLETED, FAILED, STOPPED 등)는 항상 저장한다. 프로세스가 갑자기 죽으면 저장된 체크포인트는
+ * 최대 flushEveryChunks 청크만큼 뒤처지지만, 휴면 전환 Reader는 status = ACTIVE인 회원만 읽으므로 재시작해 이미 전환한 구간을 다시 읽어도
+ * 같은 회원을 두 번 처리하지 않는다. 이때 DB에 남는 읽기/쓰기 수는 실제보다 작을 수 있다.
+ * <p>
+ * Job 실행과 Job의 ExecutionContext는 그대로 위임한다.
+ */
+public class ThrottlingJobRepository implements JobRepository {
+
+    private final JobRepository delegate;
+    private final JdbcOperations jdbcTemplate;
+    private final String statusSql;
+    private final int flushEveryChunks;
+    private final long flushIntervalNanos;
+    private final Map<Long, Progress> progressByStepExecution = new ConcurrentHashMap<>();
+
+    public ThrottlingJobRepository(JobRepository delegate, JdbcOperations jdbcTemplate,
+            String tablePrefix, int flushEveryChunks, Duration flushInterval) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.statusSql = "select STATUS from " + tablePrefix + "JOB_EXECUTION" +
+                " where JOB_EXECUTION_ID = ?";
+        this.flushEveryChunks = Math.max(1, flushEveryChunks);
+        this.flushIntervalNanos = flushInterval.toNanos();
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        if (!isRunning(stepExecution)) {
+            delegate.updateExecutionContext(stepExecution);
+            return;
+        }
+        Progress progress = progressByStepExecution.computeIfAbsent(stepExecution.getId(),
+                id -> new Progress(System.nanoTime()));
+        if (progress.nextChunk(flushEveryChunks, flushIntervalNanos)) {
+            delegate.updateExecutionContext(stepExecution);
+        }
+    }
+
+    @Override
+    public void update(StepExecution stepExecution) {
+        if (!isRunning(stepExecution)) {
+            progressByStepExecution.remove(stepExecution.getId());
+            delegate.update(stepExecution);
+            return;
+        }
+        Progress progress = progressByStepExecution.get(stepExecution.getId());
+        // Step 시작(아직 청크가 없다)이거나 이번 청크의 ExecutionContext를 저장했으면 함께 저장한다
+        if (progress == null || progress.isFlushed()) {
+            delegate.update(stepExecution);
+        } else if (isStopping(stepExecution.getJobExecutionId())) {
+            stepExecution.setTerminateOnly();
+        }
+    }
+
+    private boolean isStopping(Long jobExecutionId) {
+        String status = jdbcTemplate.queryForObject(statusSql, String.class, jobExecutionId);
+        return BatchStatus.STOPPING.name().equals(status);
+    }
+
+    private static boolean isRunning(StepExecution stepExecution) {
+        return stepExecution.getId() != null
+                && stepExecution.getStatus() == BatchStatus.STARTED
+                && !stepExecution.isTerminateOnly();
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return delegate.isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters,
+            String jobConfigurationLocation) {
+        return delegate.createJobExecution(jobInstance, jobParameters, jobConfigurationLocation);
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException,
+            JobInstanceAlreadyCompleteException {
+        return delegate.createJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        delegate.update(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        delegate.add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        delegate.addAll(stepExecutions);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        delegate.updateExecutionContext(jobExecution);
+    }
+
+    @Nullable
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        return delegate.getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        return delegate.getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Nullable
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        return delegate.getLastJobExecution(jobName, jobParameters);
+    }
+
+    private static class Progress {
+
+        private int chunks;
+        private long lastFlushNanos;
+        private boolean flushed;
+
+        Progress(long startNanos) {
+            this.lastFlushNanos = startNanos;
+        }
+
+        synchronized boolean nextChunk(int flushEveryChunks, long flushIntervalNanos) {
+            long now = System.nanoTime();
+            flushed = ++chunks >= flushEveryChunks || now - lastFlushNanos >= flushIntervalNanos;
+            if (flushed) {
+                chunks = 0;
+                lastFlushNanos = now;
+            }
+            return flushed;
+        }
+
+        synchronized boolean isFlushed() {
+            return flushed;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+create table if not exists member
+(
+    idx          bigint       not null auto_increment,
+    name         varchar(255),
+    password     varchar(255),
+    email        varchar(255),
+    principal    varchar(255),
+    social_type  varchar(255),
+    status       varchar(255),
+    grade        varchar(255),
+    created_date datetime(6),
+    updated_date datetime(6),
+    primary key (idx)
+);
@@ -0,0 +1,5 @@
+-- 휴면 전환 대상 조회 (status = ? and updated_date < ?), idx 순서 키셋 조회와 idx 범위 파티셔닝
+create index idx_member_status_updated_date on member (status, updated_date, idx);
+
+-- 등급별 휴면 전환 대상 조회 (status = ? and grade = ? and updated_date < ?)
+create index idx_member_status_grade_updated_date on member (status, grade, updated_date, idx);
@@ -0,0 +1,11 @@
+-- 휴면 회원의 개인정보 분리 보관 (InactiveUserArchiveItemWriter)
+create table if not exists member_dormant
+(
+    idx           bigint       not null,
+    name          varchar(255),
+    password      varchar(255),
+    email         varchar(255),
+    principal     varchar(255),
+    archived_date datetime(6)  not null,
+    primary key (idx)
+);
@@ -0,0 +1,9 @@
+-- 쓰기에 실패해 건너뛴 휴면 전환 대상 (BinarySplitItemWriter)
+create table if not exists batch_inactive_skip
+(
+    step_execution_id bigint       not null,
+    idx               bigint       not null,
+    reason            varchar(255),
+    skipped_date      datetime(6)  not null,
+    primary key (step_execution_id, idx)
+);
@@ -0,0 +1,10 @@
+-- 원격 파티션 요청 (DatabasePartitionHandler, InactivePartitionWorker)
+create table if not exists batch_partition_request
+(
+    step_execution_id bigint       not null primary key,
+    job_execution_id  bigint       not null,
+    step_name         varchar(100) not null,
+    status            varchar(10)  not null,
+    worker_id         varchar(100),
+    lease_expires     timestamp    null
+);
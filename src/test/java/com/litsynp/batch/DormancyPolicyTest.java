@@ -0,0 +1,133 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.DormancyNotice;
+import com.litsynp.batch.domain.jobs.inactive.DormancyNoticeProcessor;
+import com.litsynp.batch.domain.jobs.inactive.DormancyPolicy;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Policy;
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobProperties.Rule;
+import com.litsynp.batch.domain.jobs.inactive.InactiveScanWindow;
+import com.litsynp.batch.domain.jobs.inactive.InactiveUserPolicyProcessor;
+import com.litsynp.batch.domain.jobs.inactive.InactiveUserRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+class DormancyPolicyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    @Test
+    void 등급과_소셜_타입별로_처음_맞는_규칙을_적용하는_테스트() {
+        DormancyPolicy policy = DormancyPolicy.compile(policy(
+                rule("vip-kakao", Grade.VIP, SocialType.KAKAO, Period.ofYears(3)),
+                rule("vip", Grade.VIP, null, Period.ofYears(2)),
+                rule("google", null, SocialType.GOOGLE, Period.ofMonths(6))));
+
+        assertEquals("vip-kakao", policy.name(policy.ruleOf(Grade.VIP, SocialType.KAKAO)));
+        assertEquals("vip", policy.name(policy.ruleOf(Grade.VIP, SocialType.GOOGLE)));
+        assertEquals("vip", policy.name(policy.ruleOf(Grade.VIP, null)));
+        assertEquals("google", policy.name(policy.ruleOf(Grade.GOLD, SocialType.GOOGLE)));
+        assertEquals("google", policy.name(policy.ruleOf(null, SocialType.GOOGLE)));
+        assertEquals(DormancyPolicy.DEFAULT_RULE,
+                policy.name(policy.ruleOf(Grade.FAMILY, SocialType.FACEBOOK)));
+        assertEquals(DormancyPolicy.DEFAULT_RULE, policy.name(policy.ruleOf(null, null)));
+
+        // 한 번의 스캔은 가장 짧은 기준, 증분 구간의 시작은 가장 긴 기준이다
+        assertEquals(NOW.minusMonths(6), policy.scanCutoff(NOW));
+        assertEquals(NOW.minusYears(3), policy.earliestCutoff(NOW));
+    }
+
+    @Test
+    void 스캔한_회원을_자신의_규칙으로_다시_판단하고_규칙별로_세는_테스트() {
+        DormancyPolicy policy = DormancyPolicy.compile(policy(
+                rule("vip", Grade.VIP, null, Period.ofYears(2))));
+        InactiveUserPolicyProcessor processor = new InactiveUserPolicyProcessor(policy, NOW,
+                new SimpleMeterRegistry());
+
+        // 1년 반 전에 수정한 VIP는 아직 대상이 아니고, 같은 시각에 수정한 FAMILY는 대상이다
+        LocalDateTime updatedDate = NOW.minusMonths(18);
+        assertNull(processor.process(row(1L, Grade.VIP, updatedDate)));
+        assertEquals(UserStatus.INACTIVE,
+                processor.process(row(2L, Grade.FAMILY, updatedDate)).status());
+        assertEquals(UserStatus.INACTIVE,
+                processor.process(row(3L, Grade.VIP, NOW.minusYears(3))).status());
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        processor.afterStep(stepExecution);
+        assertEquals(1, stepExecution.getExecutionContext().getLong("policy.vip.matched"));
+        assertEquals(1, stepExecution.getExecutionContext().getLong("policy.default.matched"));
+    }
+
+    @Test
+    void 안내_시점과_전환_예정일을_회원의_규칙으로_계산하는_테스트() {
+        DormancyPolicy policy = DormancyPolicy.compile(policy(
+                rule("vip", Grade.VIP, null, Period.ofYears(2))));
+        Period noticeLead = Period.ofMonths(1);
+        DormancyNoticeProcessor processor = new DormancyNoticeProcessor(policy,
+                NOW.minusDays(1), NOW, noticeLead);
+
+        // 두 회원 모두 이번 구간 안에서 각자의 기준보다 한 달 먼저가 된다
+        LocalDateTime vipUpdated = NOW.minusYears(2).plus(noticeLead).minusHours(12);
+        LocalDateTime familyUpdated = NOW.minusYears(1).plus(noticeLead).minusHours(12);
+        DormancyNotice vip = processor.process(candidate(1L, Grade.VIP, vipUpdated));
+        assertEquals(vipUpdated.plusYears(2).toLocalDate(), vip.scheduledDate());
+        DormancyNotice family = processor.process(candidate(2L, Grade.FAMILY, familyUpdated));
+        assertEquals(familyUpdated.plusYears(1).toLocalDate(), family.scheduledDate());
+        // FAMILY가 VIP와 같은 시각에 수정했다면 안내 시점은 이미 지났다
+        assertNull(processor.process(candidate(3L, Grade.FAMILY, vipUpdated)));
+
+        // Reader는 두 규칙의 구간을 모두 포함해 읽는다
+        InactiveScanWindow window = DormancyNoticeProcessor.readWindow(policy, NOW.minusDays(1),
+                NOW, noticeLead);
+        assertEquals(NOW.minusDays(1).minusYears(2).plus(noticeLead), window.updatedAfter());
+        assertEquals(NOW.minusYears(1).plus(noticeLead), window.updatedBefore());
+    }
+
+    @Test
+    void 규칙이_없으면_기본_기준만_적용하는_테스트() {
+        DormancyPolicy policy = DormancyPolicy.compile(new Policy());
+
+        assertFalse(policy.hasRules());
+        assertEquals(1, policy.ruleCount());
+        assertEquals(NOW.minusYears(1), policy.scanCutoff(NOW));
+        assertTrue(policy.cutoffs(NOW)[policy.ruleOf(Grade.VIP, SocialType.KAKAO)]
+                .isEqual(NOW.minusYears(1)));
+    }
+
+    private static Policy policy(Rule... rules) {
+        Policy policy = new Policy();
+        policy.setRules(List.of(rules));
+        return policy;
+    }
+
+    private static Rule rule(String name, Grade grade, SocialType socialType, Period threshold) {
+        Rule rule = new Rule();
+        rule.setName(name);
+        rule.setGrade(grade);
+        rule.setSocialType(socialType);
+        rule.setThreshold(threshold);
+        return rule;
+    }
+
+    private static DormancyNoticeProcessor.Candidate candidate(long idx, Grade grade,
+            LocalDateTime updatedDate) {
+        return new DormancyNoticeProcessor.Candidate(idx, "user" + idx + "@test.com", grade, null,
+                updatedDate);
+    }
+
+    private static InactiveUserRow row(long idx, Grade grade, LocalDateTime updatedDate) {
+        return new InactiveUserRow(idx, UserStatus.ACTIVE, grade, null, updatedDate);
+    }
+}
@@ -0,0 +1,72 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmap;
+import com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmapBuilder;
+import com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmapReader;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DormantBitmapTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void 발행한_비트맵에서_휴면_회원을_조회하는_테스트() throws Exception {
+        Path file = directory.resolve("dormant-members.bitmap");
+        TreeSet<Long> dormant = new TreeSet<>();
+        Random random = new Random(42);
+        // 드문 구간은 char 배열, 빽빽한 구간은 비트맵 컨테이너로 저장된다
+        for (int i = 0; i < 1_000; i++) {
+            dormant.add((long) random.nextInt(1 << 20));
+        }
+        for (long idx = 5L << 16; idx < (5L << 16) + 20_000; idx++) {
+            dormant.add(idx);
+        }
+        dormant.add(1L << 40);
+
+        DormantBitmapBuilder builder = new DormantBitmapBuilder();
+        dormant.forEach(builder::add);
+        Instant asOf = Instant.now();
+        builder.publish(file, 1, asOf);
+
+        DormantBitmapReader reader = new DormantBitmapReader(file);
+        DormantBitmap bitmap = reader.current();
+        assertEquals(1, bitmap.generation());
+        assertEquals(asOf.toEpochMilli(), bitmap.asOf().toEpochMilli());
+        assertEquals(dormant.size(), bitmap.cardinality());
+        for (long idx = 0; idx < 1 << 20; idx++) {
+            assertEquals(dormant.contains(idx), reader.contains(idx));
+        }
+        assertTrue(reader.contains(1L << 40));
+        assertFalse(reader.contains(-1));
+        List<Long> all = new ArrayList<>();
+        bitmap.forEach(all::add);
+        assertEquals(new ArrayList<>(dormant), all);
+
+        // 다음 세대: 이전 세대에서 시작해 바뀐 회원만 반영한다
+        long reactivated = dormant.first();
+        DormantBitmapBuilder.from(bitmap)
+                .remove(reactivated)
+                .add(3_000_000L)
+                .publish(file, 2, Instant.now());
+
+        assertTrue(reader.refresh());
+        assertEquals(2, reader.current().generation());
+        assertFalse(reader.contains(reactivated));
+        assertTrue(reader.contains(3_000_000L));
+        // 교체 전에 매핑한 이전 세대는 그대로 읽힌다
+        assertTrue(bitmap.contains(reactivated));
+        assertFalse(reader.refresh());
+    }
+}
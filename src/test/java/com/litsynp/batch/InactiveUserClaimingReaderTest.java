@@ -0,0 +1,181 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.litsynp.batch.domain.jobs.inactive.InactiveJobConcurrency;
+import com.litsynp.batch.domain.jobs.inactive.InactiveUserRow;
+import com.litsynp.batch.domain.jobs.inactive.readers.IdRangeClaimingItemReader;
+import com.litsynp.batch.domain.jobs.inactive.writers.InactiveUserJdbcItemWriter;
+import com.litsynp.batch.support.MemberDataGenerator;
+import com.litsynp.batch.support.MemberDataSpec;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.StepRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * 멀티 스레드 Step을 16개 스레드로 실행해 IdRangeClaimingItemReader가 모든 대상을 한 번씩만 읽는지 확인한다.
+ * <p>
+ * 구간 하나에 청크 여러 개만큼의 행이 있고 청크는 풀의 아무 스레드에서나 실행되므로, 한 스레드가 가져간 구간의 남은 행을 다른 스레드가 이어서 읽어야
+ * 한다. 먼저 끝난 스레드가 null을 반환할 때 남은 행이 있으면 Step은 COMPLETED로 끝나지만 readCount가 대상 수보다 적다.
+ * <p>
+ * InactiveJobExecutorConfig는 커넥션 풀 크기로 스레드 수를 제한하므로((풀 크기 - 1) / 2), 풀이 없는 내장 DB로 바꾸는
+ * AutoConfigureTestDatabase 대신 HikariCP 풀 40개로 메모리 H2에 연결해 16개 스레드가 실제로 함께 읽게 한다.
+ */
+@SpringBootTest(properties = {
+        "spring.batch.job.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:claiming-reader;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.batch.jdbc.initialize-schema=always",
+        // 구간마다 청크 여러 개만큼의 행이 남도록 청크 크기를 고정하고 스레드를 늘린다
+        "batch.inactive.claim-width=256",
+        "batch.inactive.chunk-size=15",
+        "batch.inactive.adaptive-chunk.enabled=false",
+        "batch.inactive.executor.throttle-limit=" + InactiveUserClaimingReaderTest.THREADS})
+class InactiveUserClaimingReaderTest {
+
+    static final int THREADS = 16;
+
+    private static final int ROWS = 50_000;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private StepBuilderFactory stepBuilderFactory;
+
+    @Autowired
+    @Qualifier("inactiveJobStep")
+    private Step inactiveJobStep;
+
+    @Autowired
+    @Qualifier("inactiveUserClaimingReader")
+    private IdRangeClaimingItemReader<InactiveUserRow> inactiveUserClaimingReader;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private InactiveJobConcurrency inactiveJobConcurrency;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void 여러_스레드가_같은_회원을_한_번씩만_전환하는_테스트() {
+        new MemberDataGenerator(jdbcTemplate).generate(MemberDataSpec.builder().build(),
+                2_000_001L, ROWS);
+        LocalDateTime updatedDate = LocalDateTime.now().minusYears(1);
+        long candidates = countActive(updatedDate);
+        Long lastIdx = jdbcTemplate.queryForObject("select max(idx) from member" +
+                " where status = 'ACTIVE' and updated_date < ?", Long.class, updatedDate);
+
+        StepExecution stepExecution = new StepRunner(jobLauncher, jobRepository)
+                .launchStep(inactiveJobStep, jobParameters());
+
+        assertEquals(THREADS, inactiveJobConcurrency.throttleLimit());
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        // 빠뜨린 회원이 있으면 readCount가, 두 번 읽은 회원이 있으면 readCount와 writeCount가 어긋난다
+        assertEquals(candidates, stepExecution.getReadCount());
+        assertEquals(candidates, stepExecution.getWriteCount());
+        assertEquals(0, stepExecution.getFilterCount());
+        assertEquals(0, countActive(updatedDate));
+        // 모든 청크가 커밋되었으므로 체크포인트는 구간 끝 다음이다
+        assertEquals(lastIdx + 1, stepExecution.getExecutionContext()
+                .getLong("IdRangeClaimingItemReader.checkpoint"));
+    }
+
+    @Test
+    void 모든_회원을_정확히_한_번씩_읽는_테스트() {
+        new MemberDataGenerator(jdbcTemplate).generate(MemberDataSpec.builder().build(),
+                3_000_001L, ROWS);
+        List<Long> candidates = jdbcTemplate.queryForList("select idx from member" +
+                        " where status = 'ACTIVE' and updated_date < ? order by idx", Long.class,
+                LocalDateTime.now().minusYears(1));
+
+        // inactiveJobStep과 같은 Reader, taskExecutor, throttleLimit으로 실행하면서
+        // 회원마다 쓴 횟수와 읽은 스레드를 센다
+        Map<Long, AtomicInteger> writes = new ConcurrentHashMap<>();
+        Set<String> readers = ConcurrentHashMap.newKeySet();
+        InactiveUserJdbcItemWriter<InactiveUserRow> jdbcWriter = new InactiveUserJdbcItemWriter<>(
+                namedParameterJdbcTemplate, InactiveUserRow::idx);
+        Step step = stepBuilderFactory.get("claimingReaderStressStep")
+                .<InactiveUserRow, InactiveUserRow>chunk(15)
+                .reader(inactiveUserClaimingReader)
+                .listener(new ItemReadListener<InactiveUserRow>() {
+                    @Override
+                    public void beforeRead() {
+                    }
+
+                    @Override
+                    public void afterRead(InactiveUserRow item) {
+                        readers.add(Thread.currentThread().getName());
+                    }
+
+                    @Override
+                    public void onReadError(Exception ex) {
+                    }
+                })
+                .writer(items -> {
+                    items.forEach(item -> writes.computeIfAbsent(item.idx(),
+                            idx -> new AtomicInteger()).incrementAndGet());
+                    jdbcWriter.write(items);
+                })
+                .taskExecutor(taskExecutor)
+                .throttleLimit(inactiveJobConcurrency.throttleLimit())
+                .build();
+
+        StepExecution stepExecution = new StepRunner(jobLauncher, jobRepository)
+                .launchStep(step, jobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        assertTrue(readers.size() >= THREADS,
+                "expected " + THREADS + " reading threads but was " + readers);
+        // 빠뜨린 회원도, 두 번 쓴 회원도 없다
+        assertEquals(Set.copyOf(candidates), writes.keySet());
+        writes.forEach((idx, count) -> assertEquals(1, count.get(), "idx " + idx));
+    }
+
+    private long countActive(LocalDateTime updatedDate) {
+        Long count = jdbcTemplate.queryForObject("select count(*) from member" +
+                " where status = 'ACTIVE' and updated_date < ?", Long.class, updatedDate);
+        return count == null ? 0 : count;
+    }
+
+    private static JobParameters jobParameters() {
+        return new JobParametersBuilder()
+                .addDate("nowDate", new Date())
+                .toJobParameters();
+    }
+}
@@ -0,0 +1,230 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.InactiveUserRow;
+import com.litsynp.batch.domain.jobs.inactive.writers.BinarySplitItemWriter;
+import com.litsynp.batch.domain.jobs.inactive.writers.InactiveUserJdbcItemWriter;
+import com.litsynp.batch.support.MemberDataGenerator;
+import com.litsynp.batch.support.MemberDataSpec;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.test.StepRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+/**
+ * batch.inactive.fault-tolerance를 켰을 때 BinarySplitItemWriter가 실패한 회원만 골라 batch_inactive_skip에 남기는지, 데드락으로 청크를
+ * 다시 실행해도 건너뛴 회원을 한 번만 세는지 확인한다.
+ * <p>
+ * 실패는 회원 하나를 휴면으로 바꾸지 못하게 하는 CHECK 제약으로, 데드락은 delegate가 한 번만 던지는 DeadlockLoserDataAccessException으로 만든다.
+ * 한 스레드로 실행하는 Step도 같은 재시도 설정을 쓰는지는 한 번만 잠금 대기 시간 초과(50200)를 내는 트리거로 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.batch.job.enabled=false",
+        "batch.inactive.fault-tolerance.enabled=true",
+        "batch.inactive.fault-tolerance.initial-backoff=10ms",
+        "batch.inactive.fault-tolerance.max-backoff=50ms"})
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+// Flyway를 끄고 실행하므로 건너뛴 회원 테이블은 마이그레이션 스크립트로 직접 만든다
+@Sql("classpath:db/migration/V4__create_batch_inactive_skip.sql")
+class InactiveUserFaultToleranceTest {
+
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private StepBuilderFactory stepBuilderFactory;
+
+    @Autowired
+    @Qualifier("inactiveJobStep")
+    private Step inactiveJobStep;
+
+    @Autowired
+    @Qualifier("inactiveSingleStep")
+    private Step inactiveSingleStep;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @AfterEach
+    void dropConstraint() {
+        jdbcTemplate.execute("alter table member drop constraint if exists member_fail_write");
+        jdbcTemplate.execute("drop trigger if exists member_lock_timeout");
+    }
+
+    @Test
+    void 실패한_회원만_나눠서_건너뛰고_기록하는_테스트() {
+        List<Long> candidates = generate(4_000_001L);
+        List<Long> failing = List.of(candidates.get(candidates.size() / 3),
+                candidates.get(candidates.size() * 2 / 3));
+        failOn(failing);
+        long active = countActive();
+
+        StepExecution stepExecution = new StepRunner(jobLauncher, jobRepository)
+                .launchStep(inactiveJobStep, jobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        assertEquals(2, stepExecution.getWriteSkipCount());
+        assertEquals(active - 2, stepExecution.getWriteCount());
+        // 실패한 회원만 활성으로 남고, 이 Step의 실행 id로 batch_inactive_skip에 남는다
+        assertEquals(failing, jdbcTemplate.queryForList("select idx from member" +
+                " where status = 'ACTIVE' and updated_date < ? order by idx", Long.class,
+                LocalDateTime.now().minusYears(1)));
+        assertEquals(failing, jdbcTemplate.queryForList("select idx from batch_inactive_skip" +
+                        " where step_execution_id = ? order by idx", Long.class,
+                stepExecution.getId()));
+    }
+
+    @Test
+    void 데드락으로_다시_실행한_청크의_건너뛴_회원을_한_번만_세는_테스트() {
+        List<Long> candidates = generate(5_000_001L).subList(0, 10);
+        // 청크 하나를 반으로 나누면 앞쪽에는 실패할 회원이, 뒤쪽에는 데드락을 낼 회원이 들어간다
+        long failingIdx = candidates.get(2);
+        long deadlockIdx = candidates.get(7);
+        failOn(List.of(failingIdx));
+
+        InactiveUserJdbcItemWriter<InactiveUserRow> jdbcWriter = new InactiveUserJdbcItemWriter<>(
+                namedParameterJdbcTemplate, InactiveUserRow::idx);
+        AtomicBoolean deadlock = new AtomicBoolean(true);
+        BinarySplitItemWriter<InactiveUserRow> writer = new BinarySplitItemWriter<>(items -> {
+            List<Long> idxs = items.stream().map(InactiveUserRow::idx).toList();
+            // 실패할 회원을 건너뛴 다음, 같은 청크 트랜잭션에서 한 번만 데드락을 낸다
+            if (idxs.contains(deadlockIdx) && !idxs.contains(failingIdx)
+                    && deadlock.compareAndSet(true, false)) {
+                throw new DeadlockLoserDataAccessException("deadlock", null);
+            }
+            jdbcWriter.write(items);
+        }, InactiveUserRow::idx, namedParameterJdbcTemplate);
+        Step step = stepBuilderFactory.get("binarySplitRetryStep")
+                .<InactiveUserRow, InactiveUserRow>chunk(candidates.size())
+                .reader(new ListItemReader<>(candidates.stream()
+                        .map(idx -> new InactiveUserRow(idx, UserStatus.ACTIVE, null))
+                        .toList()))
+                .writer(writer)
+                .faultTolerant()
+                .retry(DeadlockLoserDataAccessException.class)
+                .retryLimit(2)
+                .build();
+
+        StepExecution stepExecution = new StepRunner(jobLauncher, jobRepository)
+                .launchStep(step, jobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        assertEquals(1, stepExecution.getRollbackCount());
+        // 롤백된 첫 시도에서 건너뛴 기록은 사라지고, 커밋된 두 번째 시도의 기록만 남는다
+        assertEquals(1, stepExecution.getWriteSkipCount());
+        assertEquals(candidates.size() - 1, stepExecution.getWriteCount());
+        assertEquals(List.of(failingIdx), jdbcTemplate.queryForList(
+                "select idx from batch_inactive_skip where step_execution_id = ?", Long.class,
+                stepExecution.getId()));
+    }
+
+    @Test
+    void 한_스레드_Step도_잠금_실패한_청크를_다시_실행하는_테스트() {
+        generate(6_000_001L);
+        long active = countActive();
+        LockTimeoutOnce.ARMED.set(true);
+        jdbcTemplate.execute("create trigger member_lock_timeout before update on member" +
+                " for each row call \"" + LockTimeoutOnce.class.getName() + "\"");
+
+        StepExecution stepExecution = new StepRunner(jobLauncher, jobRepository)
+                .launchStep(inactiveSingleStep, jobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        // 잠금 실패로 롤백된 청크를 한 번 다시 실행해 모든 대상을 휴면으로 바꾼다
+        assertEquals(1, stepExecution.getRollbackCount());
+        assertEquals(0, stepExecution.getWriteSkipCount());
+        assertEquals(active, stepExecution.getWriteCount());
+        assertEquals(0, countActive());
+    }
+
+    /**
+     * 처음 갱신하는 회원에서 한 번만 잠금 대기 시간 초과를 낸다. Spring은 H2의 50200을 CannotAcquireLockException으로 바꾼다.
+     */
+    public static class LockTimeoutOnce implements Trigger {
+
+        static final AtomicBoolean ARMED = new AtomicBoolean();
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName,
+                String tableName, boolean before, int type) {
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow)
+                throws SQLException {
+            if (ARMED.compareAndSet(true, false)) {
+                throw new SQLException("Timeout trying to lock table", "HYT00", 50200);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void remove() {
+        }
+    }
+
+    private List<Long> generate(long firstIdx) {
+        new MemberDataGenerator(jdbcTemplate).generate(MemberDataSpec.builder().build(),
+                firstIdx, ROWS);
+        return jdbcTemplate.queryForList("select idx from member" +
+                " where status = 'ACTIVE' and updated_date < ? and idx >= ? order by idx",
+                Long.class, LocalDateTime.now().minusYears(1), firstIdx);
+    }
+
+    private void failOn(List<Long> idxs) {
+        String list = idxs.stream().map(String::valueOf).reduce((a, b) -> a + ", " + b)
+                .orElseThrow();
+        jdbcTemplate.execute("alter table member add constraint member_fail_write" +
+                " check (status <> 'INACTIVE' or idx not in (" + list + "))");
+    }
+
+    private long countActive() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from member" +
+                " where status = 'ACTIVE' and updated_date < ?", Long.class,
+                LocalDateTime.now().minusYears(1));
+        return count == null ? 0 : count;
+    }
+
+    private static JobParameters jobParameters() {
+        return new JobParametersBuilder()
+                .addDate("nowDate", new Date())
+                .toJobParameters();
+    }
+}
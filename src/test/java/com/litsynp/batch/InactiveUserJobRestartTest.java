@@ -0,0 +1,116 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.litsynp.batch.domain.jobs.inactive.InactiveUserRangePartitioner;
+import com.litsynp.batch.support.MemberDataGenerator;
+import com.litsynp.batch.support.MemberDataSpec;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 파티션 하나를 실행 중에 실패시킨 뒤 같은 파라미터로 다시 실행해, 실패한 파티션만 저장된 체크포인트부터 이어서 실행되는지 확인한다.
+ * <p>
+ * 실패는 대상 회원 하나를 휴면으로 바꾸지 못하게 하는 CHECK 제약으로 만든다. 제약을 지운 뒤 재시작하면 완료된 파티션은 건너뛰고, 실패한 파티션은 이미
+ * 커밋한 회원을 다시 읽지 않는다.
+ */
+@SpringBootTest(properties = {
+        "spring.batch.job.enabled=false",
+        "batch.inactive.notification.enabled=false",
+        "batch.inactive.bitmap.enabled=false",
+        "batch.inactive.archive.enabled=false",
+        // 파티션 4개로 나누고, 파티션마다 한 스레드가 고정된 크기의 청크로 처리한다
+        "batch.inactive.strategy.single-step-max-rows=100",
+        "batch.inactive.strategy.rows-per-partition=500",
+        "batch.inactive.strategy.max-grid-size=4",
+        "batch.inactive.executor.throttle-limit=1",
+        "batch.inactive.claim-width=100",
+        "batch.inactive.chunk-size=20",
+        "batch.inactive.adaptive-chunk.enabled=false"})
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+class InactiveUserJobRestartTest {
+
+    private static final long FIRST_IDX = 3_000_001L;
+    private static final int ROWS = 20_000;
+    private static final String PARTITION_PREFIX = "partitionerStep:";
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void 실패한_파티션만_체크포인트부터_다시_실행하는_테스트() throws Exception {
+        new MemberDataGenerator(jdbcTemplate).generate(MemberDataSpec.builder().build(),
+                FIRST_IDX, ROWS);
+        LocalDateTime updatedDate = LocalDateTime.now().minusYears(1);
+        List<Long> candidates = jdbcTemplate.queryForList("select idx from member" +
+                " where status = 'ACTIVE' and updated_date < ? order by idx", Long.class,
+                updatedDate);
+        // 파티션 4개 중 세 번째 파티션의 가운데 회원에서 실패시킨다
+        long failingIdx = candidates.get(candidates.size() * 5 / 8);
+        jdbcTemplate.execute("alter table member add constraint member_fail_once" +
+                " check (status <> 'INACTIVE' or idx <> " + failingIdx + ")");
+
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addDate("nowDate", new Date())
+                .toJobParameters();
+        JobExecution failed = jobLauncherTestUtils.launchJob(jobParameters);
+
+        assertEquals(BatchStatus.FAILED, failed.getStatus());
+        List<StepExecution> failedPartitions = partitions(failed);
+        assertEquals(4, failedPartitions.size());
+        StepExecution failedPartition = failedPartitions.stream()
+                .filter(stepExecution -> stepExecution.getStatus() == BatchStatus.FAILED)
+                .reduce((first, second) -> {
+                    throw new AssertionError("more than one partition failed");
+                })
+                .orElseThrow();
+        ExecutionContext range = failedPartition.getExecutionContext();
+        long minIdx = range.getLong(InactiveUserRangePartitioner.MIN_IDX);
+        long maxIdx = range.getLong(InactiveUserRangePartitioner.MAX_IDX);
+        long partitionCandidates = candidates.stream()
+                .filter(idx -> idx >= minIdx && idx <= maxIdx)
+                .count();
+        // 실패하기 전에 커밋한 청크가 있고, 체크포인트는 구간 시작보다 뒤다
+        assertTrue(failedPartition.getWriteCount() > 0);
+        assertTrue(range.getLong("IdRangeClaimingItemReader.checkpoint") > minIdx);
+
+        jdbcTemplate.execute("alter table member drop constraint member_fail_once");
+        JobExecution restarted = jobLauncherTestUtils.launchJob(jobParameters);
+
+        assertEquals(BatchStatus.COMPLETED, restarted.getStatus());
+        List<StepExecution> restartedPartitions = partitions(restarted);
+        assertEquals(1, restartedPartitions.size());
+        StepExecution restartedPartition = restartedPartitions.get(0);
+        assertEquals(failedPartition.getStepName(), restartedPartition.getStepName());
+        // 이미 커밋한 회원은 다시 읽지 않는다
+        assertEquals(partitionCandidates - failedPartition.getWriteCount(),
+                restartedPartition.getReadCount());
+        assertEquals(restartedPartition.getReadCount(), restartedPartition.getWriteCount());
+        assertEquals(0L, jdbcTemplate.queryForObject("select count(*) from member" +
+                " where status = 'ACTIVE' and updated_date < ?", Long.class, updatedDate));
+    }
+
+    private static List<StepExecution> partitions(JobExecution jobExecution) {
+        return jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().startsWith(PARTITION_PREFIX))
+                .toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.litsynp.batch.support.MemberDataGenerator;
+import com.litsynp.batch.support.MemberDataSpec;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 대량의 회원 데이터로 inactiveUserJob을 실행해 처리량, 최대 힙 사용량, DB 왕복 횟수를 기록한다.
+ * <p>
+ * 오래 걸리므로 기본 test 태스크에서는 제외하고 ./gradlew scaleTest 로 실행한다. 회원 수는 -Pscale.rows=100000,1000000 처럼
+ * 바꿀 수 있고, 결과는 build/reports/scale/results.csv에 한 줄씩 추가된다.
+ */
+@Slf4j
+@Tag("scale")
+@SpringBootTest(properties = "spring.batch.job.enabled=false")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+class InactiveUserJobScaleTest {
+
+    private static final long FIRST_IDX = 1_000_001L;
+    private static final Path RESULTS = Path.of("build", "reports", "scale", "results.csv");
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Long> rows() {
+        String rows = System.getProperty("scale.rows", "");
+        if (rows.isBlank()) {
+            rows = "100000,1000000,10000000";
+        }
+        return Arrays.stream(rows.split(","))
+                .map(String::trim)
+                .map(Long::valueOf);
+    }
+
+    @ParameterizedTest(name = "{0} members")
+    @MethodSource("rows")
+    void 대량_휴면_회원_전환_테스트(long rows) throws Exception {
+        jdbcTemplate.update("delete from member where idx >= ?", FIRST_IDX);
+        new MemberDataGenerator(jdbcTemplate).generate(MemberDataSpec.builder().build(),
+                FIRST_IDX, rows);
+
+        jdbcTemplate.execute("SET QUERY_STATISTICS_MAX_ENTRIES 1000");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        long statementsBefore = executedStatements();
+        resetPeakHeapUsage();
+        long startedAt = System.nanoTime();
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                .addDate("nowDate", new Date())
+                .toJobParameters());
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        long roundTrips = executedStatements() - statementsBefore;
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        long written = jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().contains(":"))
+                .mapToLong(StepExecution::getWriteCount)
+                .sum();
+        double rowsPerSecond = written / (elapsedNanos / 1_000_000_000.0);
+        long peakHeapMb = peakHeapUsage() / (1024 * 1024);
+
+        log.info("{} members: {} written, {} rows/sec, peak heap {} MB, {} round trips", rows,
+                written, String.format("%.0f", rowsPerSecond), peakHeapMb, roundTrips);
+        record(rows, written, rowsPerSecond, peakHeapMb, roundTrips);
+
+        double minRowsPerSecond = Double.parseDouble(
+                System.getProperty("scale.minRowsPerSecond", "0"));
+        assertTrue(rowsPerSecond >= minRowsPerSecond,
+                "throughput " + rowsPerSecond + " rows/sec is below " + minRowsPerSecond);
+    }
+
+    private long executedStatements() {
+        Long count = jdbcTemplate.queryForObject("select coalesce(sum(execution_count), 0)" +
+                " from information_schema.query_statistics", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private void resetPeakHeapUsage() {
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private long peakHeapUsage() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    private void record(long rows, long written, double rowsPerSecond, long peakHeapMb,
+            long roundTrips) throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        if (Files.notExists(RESULTS)) {
+            Files.writeString(RESULTS,
+                    "timestamp,rows,written,rows_per_sec,peak_heap_mb,round_trips\n");
+        }
+        String line = String.format("%s,%d,%d,%.0f,%d,%d%n", new Date().toInstant(), rows,
+                written, rowsPerSecond, peakHeapMb, roundTrips);
+        Files.writeString(RESULTS, line, StandardOpenOption.APPEND);
+    }
+}
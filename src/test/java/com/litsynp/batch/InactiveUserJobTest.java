@@ -1,12 +1,17 @@
 package com.litsynp.batch;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.litsynp.batch.domain.enums.Grade;
 import com.litsynp.batch.domain.enums.UserStatus;
+import com.litsynp.batch.domain.jobs.inactive.bitmap.DormantBitmapReader;
 import com.litsynp.batch.repository.UserRepository;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.batch.core.BatchStatus;
@@ -17,6 +22,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ExtendWith(SpringExtension.class)
@@ -24,12 +32,25 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2) // MySQL for real, H2 for test
 class InactiveUserJobTest {
 
+    // 다른 실행, 다른 테스트 컨텍스트와 비트맵 파일을 함께 쓰지 않도록 테스트 클래스마다 디렉터리를 따로 만든다
+    private static final Path BITMAP = Path.of("build", "dormant-bitmap",
+            UUID.randomUUID().toString(), "dormant-members.bitmap").toAbsolutePath();
+
     @Autowired
     private JobLauncherTestUtils jobLauncherTestUtils;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void bitmap(DynamicPropertyRegistry registry) {
+        registry.add("batch.inactive.bitmap.enabled", () -> "true");
+        registry.add("batch.inactive.bitmap.path", BITMAP::toString);
+    }
+
     @Test
     void 휴면_회원_전환_테스트() throws Exception {
         Date nowDate = new Date();
@@ -42,5 +63,10 @@ class InactiveUserJobTest {
         assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
         assertEquals(0, userRepository.findByUpdatedDateBeforeAndStatusEquals(
                 LocalDateTime.now().minusYears(1), UserStatus.ACTIVE).size());
+        // 마지막 Step이 휴면 회원 전체의 비트맵을 발행한다
+        assertTrue(Files.exists(BITMAP));
+        assertEquals(jdbcTemplate.queryForObject("select count(*) from member" +
+                        " where status = 'INACTIVE'", Long.class),
+                new DormantBitmapReader(BITMAP).current().cardinality());
     }
 }
@@ -0,0 +1,31 @@
+package com.litsynp.batch;
+
+import com.litsynp.batch.domain.jobs.inactive.InactiveQueryPlanCheck;
+import com.litsynp.batch.support.MemberDataGenerator;
+import com.litsynp.batch.support.MemberDataSpec;
+import com.litsynp.batch.support.QueryPlanVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = "spring.batch.job.enabled=false")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+class InactiveUserQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void 휴면_전환_대상_조회_인덱스_사용_테스트() {
+        // 행이 적으면 옵티마이저가 인덱스 대신 테이블 전체를 읽을 수 있으므로 회원을 채우고 통계를 갱신한다
+        new MemberDataGenerator(jdbcTemplate).generate(MemberDataSpec.builder().build(),
+                1_000_001L, 10_000);
+        jdbcTemplate.execute("analyze");
+
+        new QueryPlanVerifier(jdbcTemplate)
+                .verify(InactiveQueryPlanCheck.DORMANT_CANDIDATE_QUERIES);
+    }
+}
@@ -0,0 +1,157 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.litsynp.batch.support.MemberDataGenerator;
+import com.litsynp.batch.support.MemberDataSpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+/**
+ * Worker JVM 여러 개를 띄우고 inactiveUserJob을 원격 파티션 모드로 실행한다.
+ * <p>
+ * 모든 JVM은 AUTO_SERVER 모드의 파일 H2를 함께 사용한다. 파티션을 처음 가져간 Worker를 강제로 종료해, 점유 기간이 지나면 다른 Worker가 그
+ * 파티션을 이어서 실행하는지도 확인한다. JVM을 여러 개 띄우므로 기본 test 태스크에서는 제외하고 ./gradlew remotePartitionTest 로 실행한다.
+ */
+@Slf4j
+@Tag("remote")
+@SpringBootTest(properties = {
+        "spring.batch.job.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.batch.jdbc.initialize-schema=always",
+        "batch.inactive.partition-mode=remote",
+        "batch.inactive.remote.lease-timeout=" + InactiveUserRemotePartitionTest.LEASE_TIMEOUT,
+        "batch.inactive.remote.poll-interval=" + InactiveUserRemotePartitionTest.POLL_INTERVAL,
+        "batch.inactive.remote.timeout=5m"})
+// Flyway를 끄고 실행하므로 요청 테이블은 마이그레이션 스크립트로 직접 만든다
+@Sql("classpath:db/migration/V5__create_batch_partition_request.sql")
+class InactiveUserRemotePartitionTest {
+
+    static final String LEASE_TIMEOUT = "3s";
+    static final String POLL_INTERVAL = "200ms";
+
+    private static final long FIRST_IDX = 1_000_001L;
+    private static final int ROWS = 200_000;
+    private static final int WORKERS = 3;
+    private static final Path WORK_DIR = Path.of("build", "remote-partition",
+            UUID.randomUUID().toString()).toAbsolutePath();
+    private static final String URL = "jdbc:h2:file:" + WORK_DIR.resolve("batch")
+            + ";AUTO_SERVER=TRUE";
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> URL);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @Test
+    void 여러_Worker_JVM에서_파티션을_나눠_실행하는_테스트() throws Exception {
+        new MemberDataGenerator(jdbcTemplate).generate(MemberDataSpec.builder().build(),
+                FIRST_IDX, ROWS);
+
+        List<Process> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < WORKERS; i++) {
+                workers.add(startWorker(i));
+            }
+
+            CompletableFuture<JobExecution> job = CompletableFuture.supplyAsync(this::launch);
+
+            int victim = awaitClaimingWorker();
+            log.info("Killing worker-{}", victim);
+            workers.get(victim).destroyForcibly().waitFor();
+
+            JobExecution jobExecution = job.get(5, TimeUnit.MINUTES);
+            assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from member" +
+                            " where status = 'ACTIVE' and updated_date < ?", Long.class,
+                    LocalDateTime.now().minusYears(1)));
+        } finally {
+            workers.forEach(Process::destroyForcibly);
+        }
+    }
+
+    private JobExecution launch() {
+        try {
+            return jobLauncherTestUtils.launchJob(new JobParametersBuilder()
+                    .addDate("nowDate", new Date())
+                    .toJobParameters());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 파티션을 가져간 Worker의 번호를 기다린다.
+     */
+    private int awaitClaimingWorker() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < deadline) {
+            List<String> claimed = jdbcTemplate.queryForList("select worker_id" +
+                    " from batch_partition_request where status = 'CLAIMED'", String.class);
+            if (!claimed.isEmpty()) {
+                return Integer.parseInt(claimed.get(0).substring("worker-".length()));
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("No worker claimed a partition");
+    }
+
+    private Process startWorker(int index) {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String classpath = System.getProperty("remote.workerClasspath",
+                System.getProperty("java.class.path"));
+        List<String> command = List.of(java, "-cp", classpath,
+                BatchApplication.class.getName(),
+                "--spring.datasource.url=" + URL,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                // 스키마와 데이터는 이 테스트의 컨텍스트가 만든다
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.batch.jdbc.initialize-schema=never",
+                "--spring.batch.job.enabled=false",
+                "--batch.inactive.remote.worker-enabled=true",
+                "--batch.inactive.remote.worker-id=worker-" + index,
+                "--batch.inactive.remote.lease-timeout=" + LEASE_TIMEOUT,
+                "--batch.inactive.remote.poll-interval=" + POLL_INTERVAL);
+        try {
+            Files.createDirectories(WORK_DIR);
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(WORK_DIR.resolve("worker-" + index + ".log").toFile())
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.litsynp.batch.domain.jobs.inactive.readers.LongKeyBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 인덱스 순서로 받은 키를 LongKeyBuffer.sort()가 idx 순서로 정렬하는지 확인한다. 메모리 매핑 파일로 옮긴 뒤에는 매핑 단위(1,048,576개)마다 정렬하고
+ * 병합하므로, 매핑 단위 세 개에 걸치는 키로 확인한다.
+ */
+class LongKeyBufferTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void 메모리에_담긴_키를_정렬하는_테스트() {
+        assertSorted(10_000, 1_000_000);
+    }
+
+    @Test
+    void 파일로_옮긴_키를_매핑_단위마다_정렬하고_병합하는_테스트() {
+        assertSorted(2_500_000, 1_000);
+    }
+
+    private void assertSorted(int count, int spillThreshold) {
+        Random random = new Random(42);
+        long[] expected = new long[count];
+        try (LongKeyBuffer keys = new LongKeyBuffer(spillThreshold, directory)) {
+            for (int i = 0; i < count; i++) {
+                // 같은 키가 여러 번 나오도록 범위를 좁힌다
+                expected[i] = random.nextInt(count * 2) + 1L;
+                keys.add(expected[i]);
+            }
+            keys.sort();
+
+            Arrays.sort(expected);
+            assertEquals(count, keys.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected[i], keys.get(i), "index " + i);
+            }
+            assertEquals(expected[count / 2 - 1], keys.boundaries(2)[0]);
+        }
+    }
+}
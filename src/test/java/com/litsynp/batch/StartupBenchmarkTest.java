@@ -0,0 +1,145 @@
+package com.litsynp.batch;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.litsynp.batch.support.StartupMetrics;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 시작 방식(기본, fast-start 프로필, fast-start 프로필 + CDS 아카이브)마다 애플리케이션을 별도 JVM으로 여러 번 실행해 첫 청크까지 걸린 시간과 그때의
+ * RSS를 잰다.
+ * <p>
+ * 값은 실행한 JVM이 StartupMetrics로 남긴 로그에서 읽고, 커밋 해시와 함께 build/reports/startup/results.csv에 이어 쓴다. CDS 아카이브는
+ * ./gradlew cdsArchive로 만들며, 없으면 그 방식은 건너뛴다. JVM을 여러 번 띄우므로 기본 test 태스크에서는 제외하고 ./gradlew
+ * startupBenchmark 로 실행한다.
+ */
+@Slf4j
+@Tag("startup")
+class StartupBenchmarkTest {
+
+    private static final Pattern STARTUP_LINE = Pattern.compile(StartupMetrics.LOG_PATTERN);
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final Path WORK_DIR = Path.of("build", "startup").toAbsolutePath();
+    private static final Path RESULTS = Path.of("build", "reports", "startup", "results.csv")
+            .toAbsolutePath();
+
+    @Test
+    void 시작_방식별로_첫_청크까지_걸린_시간과_RSS를_기록하는_테스트() throws Exception {
+        int runs = Integer.getInteger("startup.runs", 3);
+        long maxFastStartMs = Long.getLong("startup.maxFastStartMs", 0L);
+        String revision = System.getProperty("startup.revision", "unknown");
+        Path cdsArchive = Path.of(System.getProperty("startup.cdsArchive",
+                WORK_DIR.resolve("batch.jsa").toString()));
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("default", List.of());
+        modes.put("fast-start", List.of());
+        if (Files.exists(cdsArchive)) {
+            modes.put("fast-start-cds", List.of("-XX:SharedArchiveFile=" + cdsArchive));
+        } else {
+            log.info("{} not found, skipping fast-start-cds (./gradlew cdsArchive)", cdsArchive);
+        }
+
+        Files.createDirectories(RESULTS.getParent());
+        if (Files.notExists(RESULTS)) {
+            Files.writeString(RESULTS, "revision,mode,run,timeToFirstChunkMs,rssKb\n");
+        }
+
+        Map<String, Long> medians = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            List<Long> times = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                long[] result = measure(mode.getKey(), mode.getValue(), run);
+                times.add(result[0]);
+                Files.writeString(RESULTS, String.join(",", revision, mode.getKey(),
+                                String.valueOf(run), String.valueOf(result[0]),
+                                String.valueOf(result[1])) + "\n",
+                        StandardOpenOption.APPEND);
+            }
+            times.sort(null);
+            medians.put(mode.getKey(), times.get(times.size() / 2));
+        }
+        log.info("Median time to first chunk (ms): {}", medians);
+
+        if (maxFastStartMs > 0) {
+            assertTrue(medians.get("fast-start") <= maxFastStartMs,
+                    "fast-start took " + medians.get("fast-start") + "ms to the first chunk (max "
+                            + maxFastStartMs + "ms)");
+        }
+    }
+
+    /**
+     * 애플리케이션을 실행해 첫 청크까지 걸린 시간(ms)과 RSS(KB)를 반환한다.
+     */
+    private long[] measure(String mode, List<String> jvmArgs, int run) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String classpath = System.getProperty("startup.classpath",
+                System.getProperty("java.class.path"));
+        Path logFile = WORK_DIR.resolve(mode + "-" + run + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", classpath, BatchApplication.class.getName(),
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--batch.inactive.notification.directory=" + WORK_DIR.resolve("notifications")));
+        if (!mode.equals("default")) {
+            command.add("--spring.profiles.active=fast-start");
+        }
+
+        Files.createDirectories(WORK_DIR);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+        try {
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                Optional<Matcher> matcher = startupLine(logFile);
+                if (matcher.isPresent()) {
+                    return new long[]{Long.parseLong(matcher.get().group(1)),
+                            Long.parseLong(matcher.get().group(2))};
+                }
+                if (!process.isAlive()) {
+                    break;
+                }
+                Thread.sleep(50);
+            }
+            // 프로세스가 로그를 남기고 바로 끝났을 수 있다
+            return startupLine(logFile)
+                    .map(matcher -> new long[]{Long.parseLong(matcher.group(1)),
+                            Long.parseLong(matcher.group(2))})
+                    .orElseThrow(() -> new IllegalStateException(
+                            "No startup line in " + logFile + " (" + mode + ")"));
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static Optional<Matcher> startupLine(Path logFile) throws IOException {
+        if (Files.notExists(logFile)) {
+            return Optional.empty();
+        }
+        try (var lines = Files.lines(logFile)) {
+            return lines.map(STARTUP_LINE::matcher)
+                    .filter(Matcher::find)
+                    .findFirst();
+        }
+    }
+}
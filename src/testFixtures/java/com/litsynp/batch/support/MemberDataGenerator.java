@@ -0,0 +1,122 @@
+package com.litsynp.batch.support;
+
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import com.litsynp.batch.domain.enums.UserStatus;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 부하 테스트용 회원(member) 데이터를 대량으로 만든다.
+ * <p>
+ * UserRepository.save()로 넣으면 회원마다 insert 한 번과 영속성 컨텍스트 관리 비용이 들기 때문에, batchSize 행씩 JDBC 배치 insert로 넣는다.
+ * 행은 배치마다 만들어서 바로 넣으므로 만드는 회원 수와 관계없이 메모리 사용량은 일정하다.
+ */
+@Slf4j
+public class MemberDataGenerator {
+
+    private static final String INSERT_SQL = "insert into member" +
+            " (idx, email, name, password, principal, social_type, status, grade, created_date," +
+            " updated_date) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int DEFAULT_BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public MemberDataGenerator(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, DEFAULT_BATCH_SIZE);
+    }
+
+    public MemberDataGenerator(JdbcTemplate jdbcTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * idx가 firstIdx부터 연속된 회원 rows 명을 만든다.
+     */
+    public void generate(MemberDataSpec spec, long firstIdx, long rows) {
+        WeightedChoice<Grade> grades = new WeightedChoice<>(spec.getGrades());
+        WeightedChoice<SocialType> socialTypes = new WeightedChoice<>(spec.getSocialTypes());
+        WeightedChoice<UserStatus> statuses = new WeightedChoice<>(spec.getStatuses());
+        SplittableRandom random = new SplittableRandom(spec.getSeed());
+        LocalDateTime now = spec.getNow();
+        long startedAt = System.nanoTime();
+
+        for (long offset = 0; offset < rows; offset += batchSize) {
+            long batchFirstIdx = firstIdx + offset;
+            int size = (int) Math.min(batchSize, rows - offset);
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    long idx = batchFirstIdx + i;
+                    LocalDateTime updatedDate = now.minusDays(ageDays(spec, random));
+                    ps.setLong(1, idx);
+                    ps.setString(2, "user" + idx + "@test.com");
+                    ps.setString(3, "user" + idx);
+                    ps.setString(4, "password" + idx);
+                    ps.setString(5, "principal" + idx);
+                    ps.setString(6, socialTypes.next(random).name());
+                    ps.setString(7, statuses.next(random).name());
+                    ps.setString(8, grades.next(random).name());
+                    ps.setTimestamp(9, Timestamp.valueOf(updatedDate.minusDays(30)));
+                    ps.setTimestamp(10, Timestamp.valueOf(updatedDate));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        log.info("Generated {} members in {} ms", rows,
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private long ageDays(MemberDataSpec spec, SplittableRandom random) {
+        if (random.nextDouble() < spec.getDormantRatio()) {
+            return random.nextLong(spec.getDormantAfterDays() + 1L, spec.getMaxAgeDays() + 1L);
+        }
+        return random.nextLong(0, spec.getDormantAfterDays());
+    }
+
+    /**
+     * 가중치에 비례해 Enum 값을 고른다. Enum 선언 순서로 누적 가중치를 만들기 때문에 시드가 같으면 항상 같은 값을 고른다.
+     */
+    private static class WeightedChoice<E extends Enum<E>> {
+
+        private final Object[] values;
+        private final double[] cumulativeWeights;
+
+        WeightedChoice(Map<E, Double> weights) {
+            EnumMap<E, Double> ordered = new EnumMap<>(weights);
+            values = ordered.keySet().toArray();
+            cumulativeWeights = new double[values.length];
+            double sum = 0;
+            int i = 0;
+            for (double weight : ordered.values()) {
+                sum += weight;
+                cumulativeWeights[i++] = sum;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        E next(SplittableRandom random) {
+            double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (target < cumulativeWeights[i]) {
+                    return (E) values[i];
+                }
+            }
+            return (E) values[values.length - 1];
+        }
+    }
+}
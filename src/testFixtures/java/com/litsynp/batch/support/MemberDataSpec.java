@@ -0,0 +1,64 @@
+package com.litsynp.batch.support;
+
+import com.litsynp.batch.domain.enums.Grade;
+import com.litsynp.batch.domain.enums.SocialType;
+import com.litsynp.batch.domain.enums.UserStatus;
+import java.time.LocalDateTime;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * MemberDataGenerator가 만들 회원 데이터의 분포.
+ * <p>
+ * 등급, 소셜 타입, 상태는 값마다 가중치를 준다. updatedDate는 dormantRatio 비율만큼 dormantAfterDays보다 오래된 날짜로, 나머지는 그보다 최근
+ * 날짜로 고르게 만든다.
+ */
+@Getter
+@Builder
+public class MemberDataSpec {
+
+    @Builder.Default
+    private Map<Grade, Double> grades = Map.of(
+            Grade.VIP, 0.05,
+            Grade.GOLD, 0.05,
+            Grade.FAMILY, 0.9);
+
+    @Builder.Default
+    private Map<SocialType, Double> socialTypes = Map.of(
+            SocialType.FACEBOOK, 0.4,
+            SocialType.GOOGLE, 0.4,
+            SocialType.KAKAO, 0.2);
+
+    @Builder.Default
+    private Map<UserStatus, Double> statuses = Map.of(
+            UserStatus.ACTIVE, 0.9,
+            UserStatus.INACTIVE, 0.1);
+
+    /**
+     * updatedDate가 dormantAfterDays보다 오래된 회원의 비율
+     */
+    @Builder.Default
+    private double dormantRatio = 0.3;
+
+    @Builder.Default
+    private int dormantAfterDays = 365;
+
+    /**
+     * 가장 오래된 updatedDate까지의 일 수
+     */
+    @Builder.Default
+    private int maxAgeDays = 365 * 5;
+
+    /**
+     * updatedDate 계산의 기준 시각
+     */
+    @Builder.Default
+    private LocalDateTime now = LocalDateTime.now();
+
+    /**
+     * 같은 시드로 만들면 같은 데이터가 나온다
+     */
+    @Builder.Default
+    private long seed = 42L;
+}